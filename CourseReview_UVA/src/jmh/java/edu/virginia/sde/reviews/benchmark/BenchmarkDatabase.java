@@ -0,0 +1,81 @@
+package edu.virginia.sde.reviews.benchmark;
+
+import edu.virginia.sde.reviews.database.DatabaseManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * A throwaway SQLite file seeded with a deterministic dataset for benchmarks. The schema
+ * comes from opening a {@link DatabaseManager} on the file, so benchmarks always run
+ * against the current migrations; rows are then bulk loaded by {@link DatasetGenerator}
+ * over a separate connection so that setup time does not depend on the code being measured.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+    private final Path file;
+    private final DatabaseManager database;
+    private final DatasetGenerator.Spec spec;
+    private int[] courseIds;
+
+    /**
+     * Creates a database with {@code reviews} reviews spread over a proportional number of
+     * users and courses.
+     */
+    public BenchmarkDatabase(int reviews) throws IOException, SQLException {
+        this.spec = DatasetGenerator.Spec.ofReviews(reviews);
+        this.file = Files.createTempFile("course-reviews-bench", ".db");
+        String url = "jdbc:sqlite:" + file;
+        this.database = new DatabaseManager(url);
+        seed(url);
+    }
+
+    public DatabaseManager database() {
+        return database;
+    }
+
+    public int users() {
+        return spec.users();
+    }
+
+    public int courses() {
+        return courseIds.length;
+    }
+
+    /**
+     * Id of the {@code index}-th course, counting the prebuilt catalog as well.
+     */
+    public int courseId(int index) {
+        return courseIds[index];
+    }
+
+    public int reviews() {
+        return spec.reviews();
+    }
+
+    static String username(int user) {
+        return DatasetGenerator.username(user);
+    }
+
+    static String password(int user) {
+        return DatasetGenerator.password(user);
+    }
+
+    private void seed(String url) throws SQLException {
+        DatasetGenerator.generate(url, spec);
+        try (Connection connection = DriverManager.getConnection(url)) {
+            courseIds = DatasetGenerator.loadCourseIds(connection);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        database.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+}
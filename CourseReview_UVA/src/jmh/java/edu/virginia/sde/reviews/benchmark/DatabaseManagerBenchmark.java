@@ -0,0 +1,93 @@
+package edu.virginia.sde.reviews.benchmark;
+
+import edu.virginia.sde.reviews.Models.Review;
+import edu.virginia.sde.reviews.Models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the DatabaseManager calls behind the review screens and login, against
+ * datasets of increasing size. Lookups pick a random user or course each call so the
+ * numbers are not just one hot row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseManagerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Dataset {
+        @Param({ "1000", "10000", "100000" })
+        public int reviews;
+
+        BenchmarkDatabase database;
+        // Writers use user ids past the seeded range so every (user, course) pair is new
+        private int nextWriterId;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            database = new BenchmarkDatabase(reviews);
+            nextWriterId = database.users() + 1;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            database.close();
+        }
+
+        synchronized User nextWriter() {
+            return new User(nextWriterId++, "writer");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Picks {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        int user(Dataset dataset) {
+            return random.nextInt(dataset.database.users()) + 1;
+        }
+
+        int courseId(Dataset dataset) {
+            return dataset.database.courseId(random.nextInt(dataset.database.courses()));
+        }
+    }
+
+    @Benchmark
+    public List<Review> getCourseReviews(Dataset dataset, Picks picks) {
+        return dataset.database.database().getCourseReviews(picks.courseId(dataset));
+    }
+
+    @Benchmark
+    public List<Review> getUserReviews(Dataset dataset, Picks picks) {
+        return dataset.database.database().getUserReviews(new User(picks.user(dataset), null));
+    }
+
+    @Benchmark
+    public User getUser(Dataset dataset, Picks picks) {
+        int user = picks.user(dataset);
+        return dataset.database.database().getUser(BenchmarkDatabase.username(user), BenchmarkDatabase.password(user));
+    }
+
+    @Benchmark
+    public boolean addReview(Dataset dataset, Picks picks) {
+        return dataset.database.database().addReview(dataset.nextWriter(), picks.courseId(dataset), 4, "Benchmark write");
+    }
+}
@@ -0,0 +1,304 @@
+package edu.virginia.sde.reviews.benchmark;
+
+import edu.virginia.sde.reviews.database.DatabaseManager;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+/**
+ * Fills a database with a synthetic but realistic dataset. Courses follow the shape of
+ * the prebuilt catalog (department subjects, 1000-4999 numbers weighted towards intro
+ * levels, titles like "Principles of Microeconomics" or "Calculus I"). Reviews are
+ * skewed: course popularity and user activity both follow a Zipf distribution, so a few
+ * courses collect most reviews, as they do during registration week. Generation is
+ * deterministic for a given {@link Spec}.
+ */
+public final class DatasetGenerator {
+    private static final Logger LOGGER = Logger.getLogger(DatasetGenerator.class.getName());
+    private static final int BATCH_SIZE = 1000;
+    private static final int COMMIT_EVERY = 50_000;
+    private static final DateTimeFormatter SQLITE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime NEWEST_REVIEW = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final int REVIEW_HISTORY_MINUTES = 2 * 365 * 24 * 60;
+
+    // Subjects with their relative share of the catalog and the topics their courses cover
+    private static final Map<String, String[]> TOPICS = Map.ofEntries(
+        Map.entry("CS", new String[] { "Software Development", "Algorithms", "Data Structures", "Operating Systems", "Machine Learning", "Computer Networks" }),
+        Map.entry("MATH", new String[] { "Calculus", "Linear Algebra", "Probability", "Real Analysis", "Differential Equations" }),
+        Map.entry("PHYS", new String[] { "Physics", "Mechanics", "Electricity and Magnetism", "Quantum Physics" }),
+        Map.entry("CHEM", new String[] { "College Chemistry", "Organic Chemistry", "Physical Chemistry", "Biochemistry" }),
+        Map.entry("ECON", new String[] { "Microeconomics", "Macroeconomics", "Econometrics", "Game Theory" }),
+        Map.entry("STS", new String[] { "Engineering Ethics", "Technology and Society", "Science Policy" }),
+        Map.entry("APMA", new String[] { "Applied Mathematics", "Statistics", "Numerical Methods" }),
+        Map.entry("ECE", new String[] { "Circuits", "Signals and Systems", "Digital Logic", "Embedded Systems" }),
+        Map.entry("BIOL", new String[] { "Biology", "Genetics", "Cell Biology", "Ecology" }),
+        Map.entry("HIST", new String[] { "American History", "European History", "World History" }),
+        Map.entry("ENWR", new String[] { "Academic Writing", "Writing and Rhetoric" }),
+        Map.entry("PSYC", new String[] { "Psychology", "Cognitive Psychology", "Social Psychology" })
+    );
+    private static final String[] SUBJECTS = { "CS", "MATH", "PHYS", "CHEM", "ECON", "STS", "APMA", "ECE", "BIOL", "HIST", "ENWR", "PSYC" };
+    private static final int[] SUBJECT_WEIGHTS = { 14, 12, 8, 8, 8, 4, 6, 6, 8, 6, 4, 6 };
+    private static final int[] LEVEL_WEIGHTS = { 35, 30, 20, 15 };
+    private static final String[] TITLE_PREFIXES = { "", "", "Introduction to ", "Principles of ", "Advanced ", "Topics in " };
+    private static final String[] TITLE_SUFFIXES = { "", "", "", " I", " II" };
+    private static final String[] COMMENTS = {
+        "Great professor, very clear lectures.", "Heavy workload but worth it.", "Exams were much harder than the homework.",
+        "Would recommend to anyone in the major.", "Lectures were hard to follow.", "Fair grading and useful office hours.",
+        "Too much busywork.", "One of the best classes I have taken."
+    };
+
+    /**
+     * How much data to generate. {@code skew} is the Zipf exponent for course popularity
+     * and user activity: 0 is uniform, around 1 is typical.
+     */
+    public record Spec(int users, int courses, int reviews, double skew, long seed) {
+        public Spec {
+            if (users < 1 || courses < 1 || reviews < 0) {
+                throw new IllegalArgumentException("Dataset sizes must be positive");
+            }
+            if ((long) users * courses < reviews * 2L) {
+                throw new IllegalArgumentException("Too few users and courses for " + reviews + " distinct reviews");
+            }
+        }
+
+        /**
+         * A dataset of the given review count with users and courses scaled to match.
+         */
+        public static Spec ofReviews(int reviews) {
+            return new Spec(Math.max(10, reviews / 10), Math.max(10, reviews / 25), reviews, 1.0, 42);
+        }
+    }
+
+    /**
+     * What was actually written. Courses can be fewer than requested when generated
+     * titles collide.
+     */
+    public record Summary(int users, int courses, int reviews, long elapsedNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d users, %d courses, %d reviews in %.1f s",
+                    users, courses, reviews, elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    private DatasetGenerator() {
+    }
+
+    static String username(int user) {
+        return "student" + user;
+    }
+
+    static String password(int user) {
+        return "password" + user;
+    }
+
+    /**
+     * Generates the dataset into an empty database whose schema already exists (open a
+     * {@link DatabaseManager} on it first). Users get ids 1..users.
+     */
+    public static Summary generate(String url, Spec spec) throws SQLException {
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(spec.seed());
+        try (Connection connection = DriverManager.getConnection(url)) {
+            connection.setAutoCommit(false);
+            insertUsers(connection, spec.users());
+            int[] courseIds = insertCourses(connection, spec.courses(), random);
+            int reviews = insertReviews(connection, spec, courseIds, random);
+            connection.commit();
+            Summary summary = new Summary(spec.users(), courseIds.length, reviews, System.nanoTime() - start);
+            LOGGER.info("Generated " + summary);
+            return summary;
+        }
+    }
+
+    private static void insertUsers(Connection connection, int users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO users (id, username, password) VALUES (?, ?, ?)")) {
+            for (int user = 1; user <= users; user++) {
+                statement.setInt(1, user);
+                statement.setString(2, username(user));
+                statement.setString(3, password(user));
+                statement.addBatch();
+                if (user % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+                if (user % COMMIT_EVERY == 0) {
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static int[] insertCourses(Connection connection, int courses, SplittableRandom random) throws SQLException {
+        Weighted subjects = new Weighted(SUBJECT_WEIGHTS);
+        Weighted levels = new Weighted(LEVEL_WEIGHTS);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT OR IGNORE INTO courses (subject, number, title) VALUES (?, ?, ?)")) {
+            for (int course = 1; course <= courses; course++) {
+                String subject = SUBJECTS[subjects.pick(random)];
+                int number = (levels.pick(random) + 1) * 1000 + random.nextInt(1000);
+                String[] topics = TOPICS.get(subject);
+                String title = TITLE_PREFIXES[random.nextInt(TITLE_PREFIXES.length)]
+                        + topics[random.nextInt(topics.length)]
+                        + TITLE_SUFFIXES[random.nextInt(TITLE_SUFFIXES.length)];
+                if (!DatabaseManager.isValidCourse(subject, number, title)) {
+                    throw new IllegalStateException("Generated an invalid course: " + subject + " " + number + " " + title);
+                }
+                statement.setString(1, subject);
+                statement.setInt(2, number);
+                statement.setString(3, title);
+                statement.addBatch();
+                if (course % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        return loadCourseIds(connection);
+    }
+
+    static int[] loadCourseIds(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM courses ORDER BY id");
+             ResultSet resultSet = statement.executeQuery()) {
+            List<Integer> ids = new ArrayList<>();
+            while (resultSet.next()) {
+                ids.add(resultSet.getInt(1));
+            }
+            return ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int insertReviews(Connection connection, Spec spec, int[] courseIds, SplittableRandom random) throws SQLException {
+        Zipf coursePopularity = new Zipf(courseIds.length, spec.skew(), random);
+        Zipf userActivity = new Zipf(spec.users(), spec.skew(), random);
+        // Each course has its own typical rating so averages differ between courses
+        double[] courseMeans = new double[courseIds.length];
+        for (int i = 0; i < courseMeans.length; i++) {
+            courseMeans[i] = 2.5 + random.nextDouble() * 2.2;
+        }
+        int inserted = 0;
+        int pending = 0;
+        long attempts = 0;
+        // A user reviews a course at most once, so colliding picks are skipped by the
+        // unique key and drawn again
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT OR IGNORE INTO reviews (user_id, course_id, rating, comment, timestamp) VALUES (?, ?, ?, ?, ?)")) {
+            while (inserted < spec.reviews()) {
+                if (++attempts > spec.reviews() * 20L) {
+                    throw new IllegalStateException("Skew too high to place " + spec.reviews() + " distinct reviews");
+                }
+                int course = coursePopularity.sample(random);
+                int rating = (int) Math.round(courseMeans[course] + random.nextGaussian());
+                statement.setInt(1, userActivity.sample(random) + 1);
+                statement.setInt(2, courseIds[course]);
+                statement.setInt(3, Math.max(1, Math.min(5, rating)));
+                statement.setString(4, random.nextInt(4) == 0 ? null : COMMENTS[random.nextInt(COMMENTS.length)]);
+                statement.setString(5, NEWEST_REVIEW.minusMinutes(random.nextInt(REVIEW_HISTORY_MINUTES)).format(SQLITE_TIMESTAMP));
+                statement.addBatch();
+                if (++pending == Math.min(BATCH_SIZE, spec.reviews() - inserted)) {
+                    int before = inserted;
+                    for (int count : statement.executeBatch()) {
+                        inserted += Math.max(count, 0);
+                    }
+                    pending = 0;
+                    if (inserted / COMMIT_EVERY > before / COMMIT_EVERY) {
+                        connection.commit();
+                    }
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Samples from a fixed set of integer weights.
+     */
+    private static final class Weighted {
+        private final int[] cumulative;
+
+        Weighted(int[] weights) {
+            cumulative = new int[weights.length];
+            int total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulative[i] = total;
+            }
+        }
+
+        int pick(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextInt(cumulative[cumulative.length - 1]) + 1);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    /**
+     * Zipf-distributed picks over 0..n-1. Ranks are shuffled so that the most popular
+     * items are spread over the id range instead of being the lowest ids.
+     */
+    private static final class Zipf {
+        private final double[] cumulative;
+        private final int[] itemByRank;
+
+        Zipf(int n, double exponent, SplittableRandom random) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int rank = 0; rank < n; rank++) {
+                total += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            itemByRank = new int[n];
+            for (int i = 0; i < n; i++) {
+                itemByRank[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = itemByRank[i];
+                itemByRank[i] = itemByRank[j];
+                itemByRank[j] = swap;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            int rank = index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+            return itemByRank[rank];
+        }
+    }
+
+    /**
+     * Generates a dataset into a new database file:
+     * {@code DatasetGenerator <file.db> <reviews> [users] [courses] [skew]}.
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2) {
+            System.err.println("Usage: DatasetGenerator <file.db> <reviews> [users] [courses] [skew]");
+            System.exit(2);
+        }
+        int reviews = Integer.parseInt(args[1]);
+        Spec defaults = Spec.ofReviews(reviews);
+        Spec spec = new Spec(
+                args.length > 2 ? Integer.parseInt(args[2]) : defaults.users(),
+                args.length > 3 ? Integer.parseInt(args[3]) : defaults.courses(),
+                reviews,
+                args.length > 4 ? Double.parseDouble(args[4]) : defaults.skew(),
+                defaults.seed());
+        String url = "jdbc:sqlite:" + Path.of(args[0]).toAbsolutePath();
+        // Opening a DatabaseManager creates the schema
+        new DatabaseManager(url).close();
+        System.out.println(generate(url, spec));
+    }
+}
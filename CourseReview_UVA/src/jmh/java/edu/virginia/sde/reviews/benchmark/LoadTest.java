@@ -0,0 +1,223 @@
+package edu.virginia.sde.reviews.benchmark;
+
+import edu.virginia.sde.reviews.Models.Review;
+import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.database.ReviewPage;
+import edu.virginia.sde.reviews.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Replays a mixed read/write workload against {@link DatabaseManager} from many threads
+ * and reports throughput and p50/p95/p99 latency per operation. Runs against an existing
+ * database file, or generates one with {@link DatasetGenerator} when none is given.
+ *
+ * <pre>
+ * LoadTest [--db=file.db] [--reviews=100000] [--threads=16] [--duration=60] [--warmup=10] [--writes=0.1]
+ * </pre>
+ */
+public final class LoadTest {
+    private static final String[] SEARCH_SUBJECTS = { "CS", "MATH", "PHYS", "CHEM", "ECON", "BIOL", "PSYC" };
+    private static final String[] SEARCH_TITLES = { "Intro", "Calculus", "Systems", "History", "Principles" };
+    private static final int PAGE_SIZE = 50;
+
+    enum Operation {
+        SEARCH_COURSES, COURSE_REVIEWS, USER_REVIEWS, LOGIN, ADD_REVIEW, UPDATE_REVIEW
+    }
+
+    private final DatabaseManager database;
+    private final int users;
+    private final int[] courseIds;
+    private final double writeRatio;
+    private final AtomicLong errors = new AtomicLong();
+
+    private LoadTest(DatabaseManager database, int users, int[] courseIds, double writeRatio) {
+        this.database = database;
+        this.users = users;
+        this.courseIds = courseIds;
+        this.writeRatio = writeRatio;
+    }
+
+    /**
+     * Latency and outcome counts for one operation, shared by all worker threads.
+     */
+    private static final class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLongArray outcomes = new AtomicLongArray(2);
+
+        void record(long nanos, boolean succeeded) {
+            latency.record(nanos);
+            outcomes.incrementAndGet(succeeded ? 0 : 1);
+        }
+    }
+
+    private Map<Operation, Stats> run(int threads, long durationNanos, long seed) throws InterruptedException {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+        long deadline = System.nanoTime() + durationNanos;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed + t);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            runOne(random, stats);
+                        } catch (RuntimeException e) {
+                            // Query failures are counted, not fatal, so one bad call cannot stop a worker
+                            errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        return stats;
+    }
+
+    private void runOne(SplittableRandom random, Map<Operation, Stats> stats) {
+        User user = new User(random.nextInt(users) + 1, null);
+        int courseId = courseIds[random.nextInt(courseIds.length)];
+        if (random.nextDouble() < writeRatio) {
+            if (random.nextInt(5) < 3) {
+                long start = System.nanoTime();
+                boolean added = database.addReview(user, courseId, random.nextInt(5) + 1, "Load test review");
+                stats.get(Operation.ADD_REVIEW).record(System.nanoTime() - start, added);
+            } else {
+                // Finding the review to edit is setup, not part of the measured update
+                List<Review> own = database.getUserReviewsPage(user, null, 1).reviews();
+                if (own.isEmpty()) {
+                    return;
+                }
+                long start = System.nanoTime();
+                boolean updated = database.updateReview(user, own.get(0).getId(), random.nextInt(5) + 1, "Edited during load test");
+                stats.get(Operation.UPDATE_REVIEW).record(System.nanoTime() - start, updated);
+            }
+            return;
+        }
+        int pick = random.nextInt(100);
+        long start = System.nanoTime();
+        if (pick < 35) {
+            String subject = random.nextBoolean() ? SEARCH_SUBJECTS[random.nextInt(SEARCH_SUBJECTS.length)] : null;
+            String title = random.nextInt(3) == 0 ? SEARCH_TITLES[random.nextInt(SEARCH_TITLES.length)] : null;
+            Integer number = subject != null && random.nextInt(4) == 0 ? 1000 + random.nextInt(4000) : null;
+            database.searchCourses(subject, number, title);
+            stats.get(Operation.SEARCH_COURSES).record(System.nanoTime() - start, true);
+        } else if (pick < 70) {
+            ReviewPage page = database.getCourseReviewsPage(courseId, null, PAGE_SIZE);
+            stats.get(Operation.COURSE_REVIEWS).record(System.nanoTime() - start, page != null);
+        } else if (pick < 80) {
+            ReviewPage page = database.getUserReviewsPage(user, null, PAGE_SIZE);
+            stats.get(Operation.USER_REVIEWS).record(System.nanoTime() - start, page != null);
+        } else {
+            User found = database.getUser(DatasetGenerator.username(user.getId()), DatasetGenerator.password(user.getId()));
+            stats.get(Operation.LOGIN).record(System.nanoTime() - start, found != null);
+        }
+    }
+
+    private static void report(Map<Operation, Stats> stats, long durationNanos) {
+        double seconds = durationNanos / 1_000_000_000.0;
+        System.out.printf("%-15s %10s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            long count = latency.count();
+            total += count;
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf("%-15s %10d %10.1f %9d %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().name().toLowerCase(), count, count / seconds, entry.getValue().outcomes.get(1),
+                    latency.percentile(50) / 1e6, latency.percentile(95) / 1e6,
+                    latency.percentile(99) / 1e6, latency.max() / 1e6);
+        }
+        System.out.printf("%-15s %10d %10.1f%n", "total", total, total / seconds);
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: LoadTest [--db=file.db] [--reviews=N] [--threads=N] [--duration=s] [--warmup=s] [--writes=ratio]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int reviews = Integer.parseInt(options.getOrDefault("reviews", "100000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "60")) * 1_000_000_000L;
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "10")) * 1_000_000_000L;
+        double writeRatio = Double.parseDouble(options.getOrDefault("writes", "0.1"));
+
+        Path file;
+        boolean generated = !options.containsKey("db");
+        if (generated) {
+            file = Files.createTempFile("course-reviews-load", ".db");
+        } else {
+            file = Path.of(options.get("db")).toAbsolutePath();
+        }
+        String url = "jdbc:sqlite:" + file;
+        DatabaseManager database = new DatabaseManager(url);
+        try {
+            if (generated || isEmpty(url)) {
+                System.out.println("Generating " + DatasetGenerator.generate(url, DatasetGenerator.Spec.ofReviews(reviews)));
+            }
+            LoadTest test;
+            try (Connection connection = DriverManager.getConnection(url)) {
+                test = new LoadTest(database, countUsers(connection), DatasetGenerator.loadCourseIds(connection), writeRatio);
+            }
+            System.out.printf("Running %d threads for %d s (after %d s warm-up), %.0f%% writes%n",
+                    threads, duration / 1_000_000_000L, warmup / 1_000_000_000L, writeRatio * 100);
+            if (warmup > 0) {
+                test.run(threads, warmup, 1);
+            }
+            report(test.run(threads, duration, 2), duration);
+            if (test.errors.get() > 0) {
+                System.out.println(test.errors.get() + " operations threw an exception");
+            }
+        } finally {
+            database.close();
+            if (generated) {
+                for (String suffix : List.of("", "-wal", "-shm")) {
+                    Files.deleteIfExists(Path.of(file + suffix));
+                }
+            }
+        }
+    }
+
+    private static boolean isEmpty(String url) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url)) {
+            return countUsers(connection) == 0;
+        }
+    }
+
+    private static int countUsers(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM users");
+             ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+}
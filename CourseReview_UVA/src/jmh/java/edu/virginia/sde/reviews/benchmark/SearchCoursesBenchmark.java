@@ -0,0 +1,64 @@
+package edu.virginia.sde.reviews.benchmark;
+
+import edu.virginia.sde.reviews.Models.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchCourses for every combination of the subject, number and title filters. Each
+ * combination has its own SQL, so each is measured separately. The filter values are
+ * taken from a course in the generated dataset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchCoursesBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int reviews;
+
+    @Param({ "none", "subject", "number", "title", "subject+number", "subject+title", "number+title", "all" })
+    public String filters;
+
+    private BenchmarkDatabase database;
+    private String subject;
+    private Integer number;
+    private String title;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = new BenchmarkDatabase(reviews);
+        // Filter on a course that exists, so every combination finds at least one match
+        Course sample = database.database().getCourseById(database.courseId(database.courses() / 2));
+        subject = filters.equals("all") || filters.contains("subject") ? sample.getSubject() : null;
+        number = filters.equals("all") || filters.contains("number") ? sample.getNumber() : null;
+        title = filters.equals("all") || filters.contains("title") ? sample.getTitle().split(" ")[0] : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Course> searchCourses() {
+        return database.database().searchCourses(subject, number, title);
+    }
+}
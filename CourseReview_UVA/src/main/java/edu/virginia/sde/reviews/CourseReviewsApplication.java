@@ -1,24 +1,49 @@
 package edu.virginia.sde.reviews;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.application.Platform;
 import javafx.stage.Stage;
-import edu.virginia.sde.reviews.utils.WindowConstants;
+import edu.virginia.sde.reviews.database.AsyncDatabaseManager;
+import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.database.SessionManager;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.utils.Navigator;
+
+import java.util.concurrent.CompletableFuture;
 
 public class CourseReviewsApplication extends Application {
+    private final StartupPipeline startup = new StartupPipeline();
+
+    @Override
+    public void init() {
+        // The database opens in the background; queries issued before it is ready wait for it
+        CompletableFuture<DatabaseManager> database = startup.openDatabase();
+        // Query results are handed back to the controllers on the JavaFX application thread
+        AsyncDatabaseManager.initialize(database, Platform::runLater);
+        SessionManager.initialize();
+        Metrics.startPeriodicLog();
+    }
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        // Fix the FXML path to match the package structure
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/login.fxml"));
-        Parent root = loader.load();
-        
         // Set up the primary stage
         primaryStage.setTitle("Course Reviews");
-        primaryStage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+        Navigator navigator = Navigator.initialize(primaryStage);
+        navigator.show(Navigator.View.LOGIN);
         primaryStage.setResizable(false); // Prevent window resizing as per requirements
         primaryStage.show();
+
+        // Warm the data layer and parse the other screens while the user is logging in
+        startup.warmUp(navigator);
+    }
+
+    @Override
+    public void stop() {
+        Navigator.shutdown();
+        SessionManager.shutdown();
+        AsyncDatabaseManager.shutdown();
+        DatabaseManager.shutdown();
+        Metrics.shutdown();
     }
 
     public static void main(String[] args) {
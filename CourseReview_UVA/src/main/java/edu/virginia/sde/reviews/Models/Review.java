@@ -9,6 +9,8 @@ public class Review {
     private int rating;
     private String comment;
     private Timestamp timestamp;
+    private String courseSubject;
+    private int courseNumber;
 
     public Review() {
     }
@@ -69,4 +71,20 @@ public class Review {
     public void setTimestamp(Timestamp timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getCourseSubject() {
+        return courseSubject;
+    }
+
+    public void setCourseSubject(String courseSubject) {
+        this.courseSubject = courseSubject;
+    }
+
+    public int getCourseNumber() {
+        return courseNumber;
+    }
+
+    public void setCourseNumber(int courseNumber) {
+        this.courseNumber = courseNumber;
+    }
 }
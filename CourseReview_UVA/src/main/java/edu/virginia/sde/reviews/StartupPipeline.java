@@ -0,0 +1,152 @@
+package edu.virginia.sde.reviews;
+
+import edu.virginia.sde.reviews.controllers.SearchController;
+import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.search.IndexedCatalog;
+import edu.virginia.sde.reviews.utils.Navigator;
+import javafx.application.Platform;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Brings the application up in the background so the login screen can be shown
+ * immediately. The database is opened (running any schema migrations) as soon as the
+ * application initializes. Once the login screen is up, the course catalog is loaded,
+ * the search statements are prepared and the catalog is indexed for the search screen,
+ * which is parsed in parallel and handed the index, so the screen has its results ready
+ * on the first visit.
+ *
+ * <p>Each phase's duration and the time since launch at which it finished are logged
+ * together once everything is done. The leaderboards' rating prior is brought up to
+ * date a while later, so its rescoring writes stay clear of logging in.
+ */
+class StartupPipeline {
+    private static final Logger LOGGER = Logger.getLogger(StartupPipeline.class.getName());
+    // Below this, moving the leaderboards' prior would not be worth rescoring every course
+    private static final double RATING_PRIOR_DRIFT = 0.05;
+    private static final long RATING_PRIOR_DELAY_SECONDS = 60;
+
+    private record Phase(String name, long durationMillis, long sinceLaunchMillis) {
+    }
+
+    private final ExecutorService executor;
+    private final List<Phase> phases = new ArrayList<>();
+    private CompletableFuture<DatabaseManager> database;
+
+    StartupPipeline() {
+        // Views are parsed on the navigator's own preloader thread, in parallel with this one
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts opening the application-wide database and returns a future for it, which
+     * fails if the database cannot be opened.
+     */
+    CompletableFuture<DatabaseManager> openDatabase() {
+        database = CompletableFuture.supplyAsync(() -> timed("open database", DatabaseManager::initialize), executor);
+        return database;
+    }
+
+    /**
+     * Warms the data layer and preloads the other screens. Called once the login screen
+     * is showing.
+     */
+    CompletableFuture<Void> warmUp(Navigator navigator) {
+        mark("login screen shown");
+        CompletableFuture<IndexedCatalog> catalog = database.thenApplyAsync(db -> {
+            timed("load catalog", () -> {
+                db.warmCatalog();
+                return null;
+            });
+            timed("prepare statements", () -> {
+                db.warmStatements();
+                return null;
+            });
+            return timed("index catalog", () -> IndexedCatalog.load(db));
+        }, executor);
+
+        long preloadStart = System.nanoTime();
+        CompletableFuture<SearchController> search = navigator.<SearchController>controller(Navigator.View.SEARCH)
+                .whenComplete((result, ex) -> record("preload search view", preloadStart));
+        // The search screen gets the index on the JavaFX thread, whichever of the two is ready last
+        CompletableFuture<Void> handover = search.thenAcceptBothAsync(catalog, SearchController::offerCatalog,
+                Platform::runLater);
+        CompletableFuture<Void> views = search
+                .thenCompose(result -> navigator.preload(Navigator.View.REVIEWS, Navigator.View.MY_REVIEWS));
+
+        CompletableFuture<Void> warmedUp = CompletableFuture.allOf(handover, views).whenComplete((result, ex) -> {
+            if (ex != null) {
+                LOGGER.log(Level.SEVERE, "Error warming up at startup", ex);
+            }
+            logPhases();
+        });
+        warmedUp.thenRunAsync(this::refreshRatingPrior,
+                        CompletableFuture.delayedExecutor(RATING_PRIOR_DELAY_SECONDS, TimeUnit.SECONDS, executor))
+                .whenComplete((result, ex) -> executor.shutdown());
+        return warmedUp;
+    }
+
+    // Rescoring every course goes through the writer, so it runs well after login rather than during it
+    private void refreshRatingPrior() {
+        try {
+            long start = System.nanoTime();
+            boolean rescored = database.join().refreshRatingPrior(RATING_PRIOR_DRIFT);
+            LOGGER.info("Rating prior " + (rescored ? "updated" : "unchanged") + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Error refreshing the rating prior", e);
+        }
+    }
+
+    private <T> T timed(String name, Supplier<T> phase) {
+        long start = System.nanoTime();
+        try {
+            return phase.get();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    private void mark(String name) {
+        synchronized (phases) {
+            phases.add(new Phase(name, -1, uptimeMillis()));
+        }
+    }
+
+    private void record(String name, long startNanos) {
+        long durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        synchronized (phases) {
+            phases.add(new Phase(name, durationMillis, uptimeMillis()));
+        }
+    }
+
+    private void logPhases() {
+        StringBuilder summary = new StringBuilder("Startup phases:");
+        synchronized (phases) {
+            for (Phase phase : phases) {
+                summary.append(System.lineSeparator()).append(String.format(Locale.ROOT, "  %-20s %8s  done %6d ms after launch",
+                        phase.name(), phase.durationMillis() < 0 ? "" : phase.durationMillis() + " ms",
+                        phase.sinceLaunchMillis()));
+            }
+        }
+        LOGGER.info(summary.toString());
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
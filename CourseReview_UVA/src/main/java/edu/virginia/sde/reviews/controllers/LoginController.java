@@ -1,18 +1,27 @@
 package edu.virginia.sde.reviews.controllers;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.database.AsyncDatabaseManager;
 import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.metrics.OperationMetrics;
 import java.io.IOException;
-import edu.virginia.sde.reviews.utils.WindowConstants;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import edu.virginia.sde.reviews.utils.DesktopSession;
+import edu.virginia.sde.reviews.utils.Navigable;
+import edu.virginia.sde.reviews.utils.Navigator;
 
-public class LoginController {
-    private DatabaseManager databaseManager;
+public class LoginController implements Navigable {
+    private static final OperationMetrics LOGIN_METRICS = Metrics.operation("ui.login");
+    private static final OperationMetrics CREATE_ACCOUNT_METRICS = Metrics.operation("ui.createAccount");
+    private static final Logger LOGGER = Logger.getLogger(LoginController.class.getName());
+    private AsyncDatabaseManager asyncDatabase;
+    private String message = "";
 
     @FXML
     private TextField username;
@@ -20,9 +29,37 @@ public class LoginController {
     private PasswordField password;
     @FXML
     private Label error;
+    @FXML
+    private ProgressIndicator loadingIndicator;
 
     public LoginController() {
-        this.databaseManager = new DatabaseManager();
+        this.asyncDatabase = AsyncDatabaseManager.getInstance();
+    }
+
+    // The view is reused after logging out, so clear what the last user typed
+    @Override
+    public void onShow() {
+        username.clear();
+        password.clear();
+        error.setText(message);
+        message = "";
+    }
+
+    /**
+     * Logs the user out and returns to the login screen, telling them their session has
+     * expired. For screens that find {@link DesktopSession#user()} is null. The switch
+     * happens on a later pulse, so this may be called while another view is being shown.
+     */
+    public static void showSessionExpired() {
+        DesktopSession.end();
+        Platform.runLater(() -> {
+            try {
+                Navigator.getInstance().<LoginController>show(Navigator.View.LOGIN,
+                        controller -> controller.message = "Your session has expired. Please log in again.");
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error loading login screen", e);
+            }
+        });
     }
 
     @FXML
@@ -35,19 +72,30 @@ public class LoginController {
             return;
         }
 
-        User user = databaseManager.getUser(usernameText, passwordText);
-        if (user != null) {
-            databaseManager.setCurrentUser(user);
-            try {
-                FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/search.fxml"));
-                Parent root = loader.load();
-                Stage stage = (Stage) username.getScene().getWindow();
-                stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
-            } catch (IOException e) {
-                error.setText("Error loading search screen");
-            }
-        } else {
-            error.setText("Invalid username or password");
+        loadingIndicator.setVisible(true);
+        long startNanos = System.nanoTime();
+        asyncDatabase.getUser(usernameText, passwordText)
+            .whenComplete((user, ex) -> LOGIN_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((user, ex) -> loadingIndicator.setVisible(false))
+            .thenAccept(user -> {
+                if (user != null) {
+                    DesktopSession.start(user);
+                    openSearchScene();
+                } else {
+                    error.setText("Invalid username or password");
+                }
+            })
+            .exceptionally(ex -> {
+                error.setText("Error logging in");
+                return null;
+            });
+    }
+
+    private void openSearchScene() {
+        try {
+            Navigator.getInstance().show(Navigator.View.SEARCH);
+        } catch (IOException e) {
+            error.setText("Error loading search screen");
         }
     }
 
@@ -66,18 +114,31 @@ public class LoginController {
             return;
         }
 
-        if (databaseManager.userExists(usernameText)) {
-            error.setText("Username already exists");
-            return;
-        }
-
-        if (databaseManager.createUser(usernameText, passwordText)) {
-            error.setText("Account created successfully. Please log in.");
-            username.clear();
-            password.clear();
-        } else {
-            error.setText("Error creating account");
-        }
+        loadingIndicator.setVisible(true);
+        long startNanos = System.nanoTime();
+        asyncDatabase.userExists(usernameText)
+            .thenCompose(exists -> {
+                if (exists) {
+                    error.setText("Username already exists");
+                    return CompletableFuture.completedFuture(null);
+                }
+                return asyncDatabase.createUser(usernameText, passwordText)
+                    .thenAccept(created -> {
+                        if (created) {
+                            error.setText("Account created successfully. Please log in.");
+                            username.clear();
+                            password.clear();
+                        } else {
+                            error.setText("Error creating account");
+                        }
+                    });
+            })
+            .whenComplete((result, ex) -> CREATE_ACCOUNT_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((result, ex) -> loadingIndicator.setVisible(false))
+            .exceptionally(ex -> {
+                error.setText("Error creating account");
+                return null;
+            });
     }
 
     @FXML
@@ -2,61 +2,56 @@ package edu.virginia.sde.reviews.controllers;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import edu.virginia.sde.reviews.Models.Review;
 import edu.virginia.sde.reviews.Models.Course;
-import edu.virginia.sde.reviews.database.DatabaseManager;
-import edu.virginia.sde.reviews.utils.WindowConstants;
+import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.database.AsyncDatabaseManager;
+import edu.virginia.sde.reviews.database.ReviewPage;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.metrics.OperationMetrics;
+import edu.virginia.sde.reviews.utils.DesktopSession;
+import edu.virginia.sde.reviews.utils.InfiniteScroll;
+import edu.virginia.sde.reviews.utils.LatestRequest;
+import edu.virginia.sde.reviews.utils.Navigable;
+import edu.virginia.sde.reviews.utils.Navigator;
+import edu.virginia.sde.reviews.viewmodels.ConstantValue;
+import edu.virginia.sde.reviews.viewmodels.ReviewRow;
 
 import java.io.IOException;
-import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.util.List;
 
-public class MyReviewsController {
-    private DatabaseManager databaseManager = new DatabaseManager();
+public class MyReviewsController implements Navigable {
+    private static final int PAGE_SIZE = 50;
+    private static final OperationMetrics LOAD_MY_REVIEWS_METRICS = Metrics.operation("ui.loadMyReviews");
+    private static final OperationMetrics LOAD_MORE_MY_REVIEWS_METRICS = Metrics.operation("ui.loadMoreMyReviews");
+    private AsyncDatabaseManager asyncDatabase = AsyncDatabaseManager.getInstance();
+    private final LatestRequest pendingLoad = new LatestRequest();
+    private ReviewPage.Cursor nextPage;
+    private boolean loadingPage = false;
+    private int shownUserId = -1;
 
-    @FXML private TableView<Review> myReviewsTable;
-    @FXML private TableColumn<Review, String> courseColumn;
-    @FXML private TableColumn<Review, Integer> ratingColumn;
-    @FXML private TableColumn<Review, String> timestampColumn;
+    @FXML private TableView<ReviewRow> myReviewsTable;
+    @FXML private TableColumn<ReviewRow, String> courseColumn;
+    @FXML private TableColumn<ReviewRow, Integer> ratingColumn;
+    @FXML private TableColumn<ReviewRow, String> timestampColumn;
+    @FXML private ProgressIndicator loadingIndicator;
 
     @FXML
     public void initialize() {
-        // Set up table columns
-        courseColumn.setCellValueFactory(cellData -> {
-            // You may need to fetch course info if not present in Review
-            int courseId = cellData.getValue().getCourseId();
-            Course course = databaseManager.searchCourses(null, null, null)
-                .stream().filter(c -> c.getId() == courseId).findFirst().orElse(null);
-            String courseStr = (course != null)
-                ? course.getSubject() + " " + course.getNumber()
-                : "Course " + courseId;
-            return new javafx.beans.property.SimpleStringProperty(courseStr);
-        });
-        ratingColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleIntegerProperty(cellData.getValue().getRating()).asObject());
-        timestampColumn.setCellValueFactory(cellData -> {
-            Timestamp ts = cellData.getValue().getTimestamp();
-            String formatted = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(ts);
-            return new javafx.beans.property.SimpleStringProperty(formatted);
-        });
+        // Set up table columns; labels are formatted once when each page arrives
+        courseColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().course()));
+        ratingColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().rating()));
+        timestampColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().timestamp()));
 
-        // Load user's reviews
-        List<Review> reviews = databaseManager.getUserReviews();
-        ObservableList<Review> reviewList = FXCollections.observableArrayList(reviews);
-        myReviewsTable.setItems(reviewList);
+        InfiniteScroll.onNearEnd(myReviewsTable, this::loadNextPage);
 
         // Make rows clickable to go to course review scene
         myReviewsTable.setRowFactory(tv -> {
-            TableRow<Review> row = new TableRow<>();
+            TableRow<ReviewRow> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (!row.isEmpty() && event.getClickCount() == 2) {
-                    Review review = row.getItem();
+                    Review review = row.getItem().review();
                     openCourseReviewScene(review.getCourseId());
                 }
             });
@@ -64,20 +59,90 @@ public class MyReviewsController {
         });
     }
 
+    // Load the newest page of the user's reviews on every visit; later pages load on scroll
+    @Override
+    public void onShow() {
+        nextPage = null;
+        User user = DesktopSession.user();
+        if (user == null) {
+            myReviewsTable.getItems().clear();
+            shownUserId = -1;
+            LoginController.showSessionExpired();
+            return;
+        }
+        if (user.getId() != shownUserId) {
+            // Never show the previous user's reviews while a new login's load is running
+            myReviewsTable.getItems().clear();
+            shownUserId = user.getId();
+        }
+        long startNanos = System.nanoTime();
+        pendingLoad.replace(asyncDatabase.getUserReviewsPage(user, null, PAGE_SIZE))
+            .whenComplete((page, ex) -> LOAD_MY_REVIEWS_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((page, ex) -> {
+                loadingIndicator.setVisible(false);
+                loadingPage = false;
+            })
+            .thenAccept(page -> {
+                ObservableList<ReviewRow> reviewList = FXCollections.observableArrayList(ReviewRow.of(page.reviews()));
+                myReviewsTable.setItems(reviewList);
+                nextPage = page.next();
+            })
+            .exceptionally(ex -> {
+                if (!LatestRequest.isCancellation(ex)) {
+                    showError("Could not load your reviews.");
+                }
+                return null;
+            });
+        loadingIndicator.setVisible(true);
+        loadingPage = true;
+    }
+
+    @Override
+    public void onHide() {
+        pendingLoad.cancel();
+    }
+
+    // Called as the table nears its last loaded row
+    private void loadNextPage() {
+        if (loadingPage || nextPage == null) return;
+
+        User user = DesktopSession.user();
+        if (user == null) {
+            LoginController.showSessionExpired();
+            return;
+        }
+
+        loadingPage = true;
+        long startNanos = System.nanoTime();
+        pendingLoad.replace(asyncDatabase.getUserReviewsPage(user, nextPage, PAGE_SIZE))
+            .whenComplete((page, ex) -> LOAD_MORE_MY_REVIEWS_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((page, ex) -> loadingPage = false)
+            .thenAccept(page -> {
+                myReviewsTable.getItems().addAll(ReviewRow.of(page.reviews()));
+                nextPage = page.next();
+            })
+            .exceptionally(ex -> {
+                if (!LatestRequest.isCancellation(ex)) {
+                    showError("Could not load more reviews.");
+                }
+                return null;
+            });
+    }
+
     private void openCourseReviewScene(int courseId) {
+        pendingLoad.cancel();
+        // Find the course object
+        asyncDatabase.getCourseById(courseId).thenAccept(course -> {
+            if (course != null) {
+                openCourseReviewScene(course);
+            }
+        });
+    }
+
+    private void openCourseReviewScene(Course course) {
         try {
-            // Find the course object
-            Course course = databaseManager.searchCourses(null, null, null)
-                .stream().filter(c -> c.getId() == courseId).findFirst().orElse(null);
-            if (course == null) return;
-
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/reviews.fxml"));
-            Parent root = loader.load();
-            ReviewController controller = loader.getController();
-            controller.setCourse(course);
-
-            Stage stage = (Stage) myReviewsTable.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().<ReviewController>show(Navigator.View.REVIEWS,
+                    controller -> controller.setCourse(course));
         } catch (IOException e) {
             showError("Could not load Course Review screen.");
         }
@@ -86,10 +151,7 @@ public class MyReviewsController {
     @FXML
     private void handleBack() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/search.fxml"));
-            Parent root = loader.load();
-            Stage stage = (Stage) myReviewsTable.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().show(Navigator.View.SEARCH);
         } catch (IOException e) {
             showError("Could not load Course Search screen.");
         }
@@ -2,47 +2,85 @@ package edu.virginia.sde.reviews.controllers;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import edu.virginia.sde.reviews.Models.Course;
 import edu.virginia.sde.reviews.Models.Review;
-import edu.virginia.sde.reviews.database.DatabaseManager;
-import edu.virginia.sde.reviews.utils.WindowConstants;
+import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.database.AsyncDatabaseManager;
+import edu.virginia.sde.reviews.database.RatingDistribution;
+import edu.virginia.sde.reviews.database.ReviewPage;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.metrics.OperationMetrics;
+import edu.virginia.sde.reviews.utils.DesktopSession;
+import edu.virginia.sde.reviews.utils.InfiniteScroll;
+import edu.virginia.sde.reviews.utils.LatestRequest;
+import edu.virginia.sde.reviews.utils.Navigable;
+import edu.virginia.sde.reviews.utils.Navigator;
+import edu.virginia.sde.reviews.viewmodels.ConstantValue;
+import edu.virginia.sde.reviews.viewmodels.ReviewRow;
 
 import java.io.IOException;
-import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
-import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
-public class ReviewController {
-    private DatabaseManager databaseManager = new DatabaseManager();
+public class ReviewController implements Navigable {
+    private static final int PAGE_SIZE = 50;
+    private static final OperationMetrics LOAD_REVIEWS_METRICS = Metrics.operation("ui.loadReviews");
+    private static final OperationMetrics LOAD_MORE_REVIEWS_METRICS = Metrics.operation("ui.loadMoreReviews");
+    private static final OperationMetrics SUBMIT_REVIEW_METRICS = Metrics.operation("ui.submitReview");
+    private static final OperationMetrics DELETE_REVIEW_METRICS = Metrics.operation("ui.deleteReview");
+    private AsyncDatabaseManager asyncDatabase = AsyncDatabaseManager.getInstance();
+    private final LatestRequest pendingLoad = new LatestRequest();
+    private ReviewPage.Cursor nextPage;
+    private boolean loadingPage = false;
     private Course course;
     private Review userReview;
+    // Indexed by star rating; element 0 is unused
+    private final ProgressBar[] distributionBars = new ProgressBar[6];
+    private final Label[] distributionLabels = new Label[6];
+
+    private record CourseData(ReviewPage page, Review ownReview, RatingDistribution distribution) {
+    }
 
     @FXML private Label courseInfoLabel;
     @FXML private Label averageRatingLabel;
+    @FXML private GridPane ratingDistributionGrid;
     @FXML private VBox reviewForm;
     @FXML private Label reviewFormLabel;
     @FXML private ComboBox<Integer> ratingComboBox;
     @FXML private TextArea commentTextArea;
     @FXML private Button submitButton;
     @FXML private Button deleteButton;
-    @FXML private TableView<Review> reviewsTable;
-    @FXML private TableColumn<Review, Integer> ratingColumn;
-    @FXML private TableColumn<Review, String> timestampColumn;
-    @FXML private TableColumn<Review, String> commentColumn;
+    @FXML private TableView<ReviewRow> reviewsTable;
+    @FXML private TableColumn<ReviewRow, Integer> ratingColumn;
+    @FXML private TableColumn<ReviewRow, String> timestampColumn;
+    @FXML private TableColumn<ReviewRow, String> commentColumn;
+    @FXML private ProgressIndicator loadingIndicator;
 
     // This should be called by the previous scene to set the course
     public void setCourse(Course course) {
+        if (this.course != null && this.course.getId() != course.getId()) {
+            // The view is reused, so don't flash the previous course's reviews
+            reviewsTable.getItems().clear();
+            reviewForm.setVisible(false);
+            showDistribution(RatingDistribution.EMPTY);
+        }
         this.course = course;
+    }
+
+    @Override
+    public void onShow() {
         loadCourseData();
     }
 
+    @Override
+    public void onHide() {
+        pendingLoad.cancel();
+    }
+
     @FXML
     public void initialize() {
         // Set up rating choices
@@ -52,17 +90,28 @@ public class ReviewController {
 
         // Set up table columns
         if (ratingColumn != null) {
-            ratingColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleIntegerProperty(cellData.getValue().getRating()).asObject());
+            ratingColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().rating()));
         }
         if (timestampColumn != null) {
-            timestampColumn.setCellValueFactory(cellData -> {
-                Timestamp ts = cellData.getValue().getTimestamp();
-                String formatted = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(ts);
-                return new javafx.beans.property.SimpleStringProperty(formatted);
-            });
+            timestampColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().timestamp()));
         }
         if (commentColumn != null) {
-            commentColumn.setCellValueFactory(cellData -> new javafx.beans.property.SimpleStringProperty(cellData.getValue().getComment() == null ? "" : cellData.getValue().getComment()));
+            commentColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().comment()));
+        }
+        if (reviewsTable != null) {
+            InfiniteScroll.onNearEnd(reviewsTable, this::loadNextPage);
+        }
+
+        // One row per rating, 5 stars at the top
+        if (ratingDistributionGrid != null) {
+            for (int stars = 5; stars >= 1; stars--) {
+                ProgressBar bar = new ProgressBar(0);
+                bar.setPrefWidth(200);
+                Label count = new Label();
+                distributionBars[stars] = bar;
+                distributionLabels[stars] = count;
+                ratingDistributionGrid.addRow(5 - stars, new Label(stars + " \u2605"), bar, count);
+            }
         }
     }
 
@@ -76,23 +125,87 @@ public class ReviewController {
         if (course.getAverageRating() == 0.0) {
             averageRatingLabel.setText("Average Rating: ");
         } else {
-            averageRatingLabel.setText(String.format("Average Rating: %.2f", course.getAverageRating()));
+            averageRatingLabel.setText(String.format(Locale.ROOT, "Average Rating: %.2f", course.getAverageRating()));
         }
 
-        // Load all reviews for this course
-        List<Review> reviews = databaseManager.getCourseReviews(course.getId());
-        ObservableList<Review> reviewList = FXCollections.observableArrayList(reviews);
-        reviewsTable.setItems(reviewList);
+        User user = DesktopSession.user();
+        if (user == null) {
+            LoginController.showSessionExpired();
+            return;
+        }
+
+        // Load the newest page of reviews, the rating counts and the user's own review together
+        nextPage = null;
+        int courseId = course.getId();
+        long startNanos = System.nanoTime();
+        CompletableFuture<ReviewPage> firstPage = asyncDatabase.getCourseReviewsPage(courseId, null, PAGE_SIZE);
+        CompletableFuture<RatingDistribution> distribution = asyncDatabase.getRatingDistribution(courseId);
+        CompletableFuture<Review> ownReview = asyncDatabase.getUserReviewForCourse(user, courseId);
+        // Only the combined future is tracked, so the screen is updated in a stage after it;
+        // a superseded load is then cancelled before any of its results are shown
+        pendingLoad.replace(CompletableFuture.allOf(firstPage, ownReview, distribution)
+                .thenApply(loaded -> new CourseData(firstPage.join(), ownReview.join(), distribution.join())))
+            .whenComplete((data, ex) -> LOAD_REVIEWS_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((data, ex) -> {
+                loadingIndicator.setVisible(false);
+                loadingPage = false;
+            })
+            .thenAccept(data -> {
+                reviewsTable.setItems(FXCollections.observableArrayList(ReviewRow.of(data.page().reviews())));
+                nextPage = data.page().next();
+                showUserReview(data.ownReview());
+                showDistribution(data.distribution());
+            })
+            .exceptionally(ex -> {
+                if (!LatestRequest.isCancellation(ex)) {
+                    showError("Could not load reviews.");
+                }
+                return null;
+            });
+        loadingIndicator.setVisible(true);
+        loadingPage = true;
+    }
+
+    // Called as the reviews table nears its last loaded row
+    private void loadNextPage() {
+        if (loadingPage || nextPage == null) return;
 
-        // Check if current user has a review for this course
-        userReview = null;
-        int currentUserId = databaseManager.getCurrentUser().getId();
-        for (Review r : reviews) {
-            if (r.getUserId() == currentUserId) {
-                userReview = r;
-                break;
+        loadingPage = true;
+        long startNanos = System.nanoTime();
+        pendingLoad.replace(asyncDatabase.getCourseReviewsPage(course.getId(), nextPage, PAGE_SIZE))
+            .whenComplete((page, ex) -> LOAD_MORE_REVIEWS_METRICS.recordCompletion(startNanos, ex))
+            .whenComplete((page, ex) -> loadingPage = false)
+            .thenAccept(page -> {
+                reviewsTable.getItems().addAll(ReviewRow.of(page.reviews()));
+                nextPage = page.next();
+            })
+            .exceptionally(ex -> {
+                if (!LatestRequest.isCancellation(ex)) {
+                    showError("Could not load more reviews.");
+                }
+                return null;
+            });
+    }
+
+    // Also refreshes the average, which is stale in the Course passed in once the user
+    // has written, changed or deleted a review here
+    private void showDistribution(RatingDistribution counts) {
+        if (counts.total() == 0) {
+            averageRatingLabel.setText("Average Rating: ");
+        } else {
+            averageRatingLabel.setText(String.format(Locale.ROOT, "Average Rating: %.2f", counts.average()));
+        }
+        for (int stars = 1; stars <= 5; stars++) {
+            if (distributionBars[stars] == null) {
+                continue;
             }
+            distributionBars[stars].setProgress(counts.fraction(stars));
+            distributionLabels[stars].setText(String.format(Locale.ROOT, "%d (%.0f%%)", counts.count(stars), counts.fraction(stars) * 100));
         }
+    }
+
+    private void showUserReview(Review review) {
+        userReview = review;
 
         // Show/hide form and set up for add/edit
         if (userReview == null) {
@@ -120,42 +233,65 @@ public class ReviewController {
             showError("Please select a rating.");
             return;
         }
+        User user = DesktopSession.user();
+        if (user == null) {
+            LoginController.showSessionExpired();
+            return;
+        }
 
-        boolean success;
+        long startNanos = System.nanoTime();
+        CompletableFuture<Boolean> write;
         if (userReview == null) {
             // Add new review
-            success = databaseManager.addReview(course.getId(), rating, comment);
+            write = asyncDatabase.addReview(user, course.getId(), rating, comment);
         } else {
             // Update existing review
-            success = databaseManager.updateReview(userReview.getId(), rating, comment);
-        }
-
-        if (!success) {
-            showError("Failed to submit review.");
-        } else {
-            // Refresh data
-            loadCourseData();
+            write = asyncDatabase.updateReview(user, userReview.getId(), rating, comment);
         }
+        runWrite(write, SUBMIT_REVIEW_METRICS, startNanos, "Failed to submit review.");
     }
 
     @FXML
     private void handleDeleteReview() {
         if (userReview == null) return;
-        boolean success = databaseManager.deleteReview(userReview.getId());
-        if (!success) {
-            showError("Failed to delete review.");
-        } else {
-            loadCourseData();
+        User user = DesktopSession.user();
+        if (user == null) {
+            LoginController.showSessionExpired();
+            return;
         }
+        long startNanos = System.nanoTime();
+        runWrite(asyncDatabase.deleteReview(user, userReview.getId()),
+                DELETE_REVIEW_METRICS, startNanos, "Failed to delete review.");
+    }
+
+    private void runWrite(CompletableFuture<Boolean> write, OperationMetrics metrics, long startNanos,
+                          String failureMessage) {
+        // Block resubmission until the pending write has landed
+        submitButton.setDisable(true);
+        deleteButton.setDisable(true);
+        write.whenComplete((success, ex) -> metrics.recordCompletion(startNanos, ex))
+            .whenComplete((success, ex) -> {
+                submitButton.setDisable(false);
+                deleteButton.setDisable(false);
+            })
+            .thenAccept(success -> {
+                if (!success) {
+                    showError(failureMessage);
+                } else {
+                    // Refresh data
+                    loadCourseData();
+                }
+            })
+            .exceptionally(ex -> {
+                showError(failureMessage);
+                return null;
+            });
     }
 
     @FXML
     private void handleBack() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/search.fxml"));
-            Parent root = loader.load();
-            Stage stage = (Stage) courseInfoLabel.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().show(Navigator.View.SEARCH);
         } catch (IOException e) {
             showError("Could not load Course Search screen.");
         }
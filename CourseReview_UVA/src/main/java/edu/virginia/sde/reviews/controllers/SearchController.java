@@ -1,25 +1,51 @@
 package edu.virginia.sde.reviews.controllers;
 
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.Scene;
-import javafx.stage.Stage;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleDoubleProperty;
+import javafx.util.Duration;
 
-import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.database.AsyncDatabaseManager;
 import edu.virginia.sde.reviews.Models.Course;
-import edu.virginia.sde.reviews.utils.WindowConstants;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.metrics.OperationMetrics;
+import edu.virginia.sde.reviews.search.CourseSearchIndex;
+import edu.virginia.sde.reviews.search.IndexedCatalog;
+import edu.virginia.sde.reviews.utils.DesktopSession;
+import edu.virginia.sde.reviews.utils.LatestRequest;
+import edu.virginia.sde.reviews.utils.Navigable;
+import edu.virginia.sde.reviews.utils.Navigator;
+import edu.virginia.sde.reviews.viewmodels.ConstantValue;
+import edu.virginia.sde.reviews.viewmodels.CourseRow;
+import edu.virginia.sde.reviews.viewmodels.FormattedRating;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
-public class SearchController {
-    private DatabaseManager databaseManager;
+public class SearchController implements Navigable {
+    private static final OperationMetrics SEARCH_METRICS = Metrics.operation("ui.search");
+    private static final OperationMetrics LOAD_COURSES_METRICS = Metrics.operation("ui.loadCourses");
+    private static final OperationMetrics REFRESH_RATINGS_METRICS = Metrics.operation("ui.refreshRatings");
+    private static final OperationMetrics ADD_COURSE_METRICS = Metrics.operation("ui.addCourse");
+    private static final OperationMetrics TOP_RATED_METRICS = Metrics.operation("ui.topRated");
+    private static final int TOP_RATED_LIMIT = 25;
+    private static final Duration TYPING_PAUSE = Duration.millis(150);
+    private AsyncDatabaseManager asyncDatabase;
+    private final LatestRequest pendingLoad = new LatestRequest();
+    private final LatestRequest pendingTopRated = new LatestRequest();
+    private final PauseTransition typingPause = new PauseTransition(TYPING_PAUSE);
+    private boolean filterPending = false;
+    private CourseSearchIndex index;
+    private long ratingsVersion;
+    private boolean catalogChanged = false;
+
+    // Ratings read after the index was built, with the version they were read at
+    private record Ratings(long version, Map<Integer, Double> byCourse) {
+    }
 
     @FXML
     private TextField subjectField;
@@ -28,87 +54,198 @@ public class SearchController {
     @FXML
     private TextField titleField;
     @FXML
-    private TableView<Course> courseTable;
+    private CheckBox fuzzyCheckBox;
+    @FXML
+    private ToggleButton topRatedButton;
     @FXML
-    private TableColumn<Course, String> subjectColumn;
+    private TableView<CourseRow> courseTable;
     @FXML
-    private TableColumn<Course, Integer> numberColumn;
+    private TableColumn<CourseRow, String> subjectColumn;
     @FXML
-    private TableColumn<Course, String> titleColumn;
+    private TableColumn<CourseRow, Integer> numberColumn;
     @FXML
-    private TableColumn<Course, Double> ratingColumn;
+    private TableColumn<CourseRow, String> titleColumn;
+    @FXML
+    private TableColumn<CourseRow, FormattedRating> ratingColumn;
+    @FXML
+    private ProgressIndicator loadingIndicator;
 
     public SearchController() {
-        this.databaseManager = new DatabaseManager();
+        this.asyncDatabase = AsyncDatabaseManager.getInstance();
     }
 
     @FXML
     public void initialize() {
-        // Set up table columns
-        subjectColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleStringProperty(cellData.getValue().getSubject()));
-
-        numberColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleIntegerProperty(cellData.getValue().getNumber()).asObject());
-
-        titleColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleStringProperty(cellData.getValue().getTitle()));
-
-        ratingColumn.setCellValueFactory(cellData ->
-                new javafx.beans.property.SimpleDoubleProperty(cellData.getValue().getAverageRating()).asObject());
-
-        ratingColumn.setCellFactory(column -> new TableCell<Course, Double>() {
-            @Override
-            protected void updateItem(Double item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null || item == 0.0) {
-                    setText("");
-                } else {
-                    setText(String.format("%.1f", item));
-                }
-            }
-        });
+        // Set up table columns; rows are precomputed, so cells only read their fields.
+        // The rating's text is already formatted (blank when unrated) and it sorts numerically.
+        subjectColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().subject()));
+        numberColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().number()));
+        titleColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().title()));
+        ratingColumn.setCellValueFactory(cellData -> ConstantValue.of(cellData.getValue().rating()));
 
         // Add double-click handler
         courseTable.setRowFactory(tv -> {
-            TableRow<Course> row = new TableRow<>();
+            TableRow<CourseRow> row = new TableRow<>();
             row.setOnMouseClicked(event -> {
                 if (!row.isEmpty() && event.getClickCount() == 2) {
-                    Course selectedCourse = row.getItem();
+                    Course selectedCourse = row.getItem().course();
                     openReviewScene(selectedCourse);
                 }
             });
             return row;
         });
 
-        // Load initial data
-        handleSearch();
+        // Filter as the user types, from the in-memory index rather than the database
+        typingPause.setOnFinished(event -> {
+            if (filterPending) {
+                filterPending = false;
+                applyFilter();
+            }
+        });
+        subjectField.textProperty().addListener((obs, oldText, newText) -> onQueryChanged());
+        numberField.textProperty().addListener((obs, oldText, newText) -> onQueryChanged());
+        titleField.textProperty().addListener((obs, oldText, newText) -> onQueryChanged());
+        fuzzyCheckBox.selectedProperty().addListener((obs, wasSelected, isSelected) -> applyFilter());
+        topRatedButton.selectedProperty().addListener((obs, wasSelected, isSelected) -> applyFilter());
+    }
+
+    // The index is built on the first visit and rebuilt only after a course is added;
+    // later visits just pick up ratings changed by reviews written since
+    @Override
+    public void onShow() {
+        if (index == null || catalogChanged) {
+            loadCourses();
+        } else {
+            refreshRatings();
+        }
+    }
+
+    @Override
+    public void onHide() {
+        pendingLoad.cancel();
+        pendingTopRated.cancel();
+        typingPause.stop();
+        filterPending = false;
+    }
+
+    // Indexes the catalog snapshot with its ratings on the reader thread. A rebuild keeps
+    // serving searches from the old index until the new one is ready.
+    private void loadCourses() {
+        long startNanos = System.nanoTime();
+        pendingLoad.replace(asyncDatabase.read(IndexedCatalog::load))
+                .whenComplete((loaded, ex) -> LOAD_COURSES_METRICS.recordCompletion(startNanos, ex))
+                .whenComplete((loaded, ex) -> loadingIndicator.setVisible(false))
+                .thenAccept(this::install)
+                .exceptionally(ex -> {
+                    if (!LatestRequest.isCancellation(ex)) {
+                        showError("Could not load courses.");
+                    }
+                    return null;
+                });
+        loadingIndicator.setVisible(index == null);
+    }
+
+    /**
+     * Hands over an index built in the background, e.g. while the user was logging in.
+     * Ignored if this screen already has one. Must be called on the JavaFX application
+     * thread.
+     */
+    public void offerCatalog(IndexedCatalog loaded) {
+        if (index == null) {
+            // A load started by an earlier visit is no longer needed
+            pendingLoad.cancel();
+            install(loaded);
+        }
+    }
+
+    private void install(IndexedCatalog loaded) {
+        index = loaded.index();
+        ratingsVersion = loaded.ratingsVersion();
+        catalogChanged = false;
+        applyFilter();
+    }
+
+    // Reads the ratings again only if a review has been written since they were last read
+    private void refreshRatings() {
+        long knownVersion = ratingsVersion;
+        long startNanos = System.nanoTime();
+        pendingLoad.replace(asyncDatabase.read(db -> {
+                    long version = db.ratingsVersion();
+                    return version == knownVersion ? null : new Ratings(version, db.getCourseRatings());
+                }))
+                .whenComplete((ratings, ex) -> REFRESH_RATINGS_METRICS.recordCompletion(startNanos, ex))
+                .thenAccept(ratings -> {
+                    if (ratings == null) {
+                        return;
+                    }
+                    ratingsVersion = ratings.version();
+                    if (index.updateRatings(ratings.byCourse())) {
+                        applyFilter();
+                    }
+                })
+                .exceptionally(ex -> {
+                    if (!LatestRequest.isCancellation(ex)) {
+                        showError("Could not load course ratings.");
+                    }
+                    return null;
+                });
+    }
+
+    // The first keystroke after a pause filters at once; a burst of typing then filters
+    // at most once per pause, with the last keystroke always applied
+    private void onQueryChanged() {
+        if (typingPause.getStatus() == Animation.Status.RUNNING) {
+            filterPending = true;
+        } else {
+            applyFilter();
+        }
+        typingPause.playFromStart();
     }
 
     @FXML
     private void handleSearch() {
-        String subject = subjectField.getText();
-        String numberStr = numberField.getText();
-        String title = titleField.getText();
-
-        Integer number = null;
-        if (!numberStr.isEmpty()) {
-            try {
-                number = Integer.parseInt(numberStr);
-            } catch (NumberFormatException e) {
-                showError("Course number must be a 4-digit number.");
-                return;
-            }
+        String numberStr = numberField.getText().strip();
+        if (!numberStr.isEmpty() && !numberStr.matches("\\d{1,4}")) {
+            showError("Course number must be up to 4 digits.");
+            return;
         }
+        applyFilter();
+    }
 
-        var courses = databaseManager.searchCourses(
-                subject.isEmpty() ? null : subject,
-                number,
-                title.isEmpty() ? null : title
-        );
-
-        ObservableList<Course> courseList = FXCollections.observableArrayList(courses);
+    private void applyFilter() {
+        if (topRatedButton.isSelected()) {
+            loadTopRated();
+            return;
+        }
+        pendingTopRated.cancel();
+        if (index == null) {
+            // Results appear as soon as the index has loaded
+            return;
+        }
+        long startNanos = System.nanoTime();
+        // Fuzzy results come best match first; exact ones in catalog order
+        List<CourseRow> results = fuzzyCheckBox.isSelected()
+                ? index.fuzzySearch(subjectField.getText(), numberField.getText(), titleField.getText())
+                : index.search(subjectField.getText(), numberField.getText(), titleField.getText());
+        ObservableList<CourseRow> courseList = FXCollections.observableArrayList(results);
         courseTable.setItems(courseList);
+        SEARCH_METRICS.recordSince(startNanos);
+    }
+
+    // The leaderboard ranks a whole subject, or the whole catalog when no subject is given;
+    // the number and title filters do not apply to it
+    private void loadTopRated() {
+        String subject = subjectField.getText().strip();
+        long startNanos = System.nanoTime();
+        pendingTopRated.replace(asyncDatabase.getTopRatedCourses(subject.isEmpty() ? null : subject, TOP_RATED_LIMIT))
+                .whenComplete((courses, ex) -> TOP_RATED_METRICS.recordCompletion(startNanos, ex))
+                .thenAccept(courses -> courseTable.setItems(FXCollections.observableArrayList(CourseRow.of(courses))))
+                .exceptionally(ex -> {
+                    if (!LatestRequest.isCancellation(ex)) {
+                        showError("Could not load top rated courses.");
+                    }
+                    return null;
+                });
     }
 
     @FXML
@@ -149,22 +286,30 @@ public class SearchController {
         }
 
         Course course = new Course(subject, number, title);
-        boolean success = databaseManager.addCourse(course.getSubject(), course.getNumber(), course.getTitle()); // You must implement this method in your DB class
-
-        if (!success) {
-            showError("Failed to add course. It may already exist.");
-        } else {
-            handleSearch(); // Refresh list
-        }
+        long startNanos = System.nanoTime();
+        asyncDatabase.addCourse(course.getSubject(), course.getNumber(), course.getTitle())
+                .whenComplete((success, ex) -> ADD_COURSE_METRICS.recordCompletion(startNanos, ex))
+                .thenAccept(success -> {
+                    if (!success) {
+                        showError("Failed to add course. It may already exist.");
+                    } else {
+                        // Rebuild the index so the new course can be found
+                        catalogChanged = true;
+                        loadCourses();
+                    }
+                })
+                .exceptionally(ex -> {
+                    if (!LatestRequest.isCancellation(ex)) {
+                        showError("Failed to add course.");
+                    }
+                    return null;
+                });
     }
 
     @FXML
     private void handleMyReviews() {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/myreviews.fxml"));
-            Parent root = loader.load();
-            Stage stage = (Stage) courseTable.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().show(Navigator.View.MY_REVIEWS);
         } catch (IOException e) {
             showError("Could not load My Reviews screen.");
         }
@@ -172,12 +317,9 @@ public class SearchController {
 
     @FXML
     private void handleLogout() {
-        databaseManager.setCurrentUser(null);
+        DesktopSession.end();
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/login.fxml"));
-            Parent root = loader.load();
-            Stage stage = (Stage) courseTable.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().show(Navigator.View.LOGIN);
         } catch (IOException e) {
             showError("Could not load login screen.");
         }
@@ -185,13 +327,8 @@ public class SearchController {
 
     private void openReviewScene(Course course) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/edu/virginia/sde/reviews/reviews.fxml"));
-            Parent root = loader.load();
-            ReviewController controller = loader.getController();
-            controller.setCourse(course);
-
-            Stage stage = (Stage) courseTable.getScene().getWindow();
-            stage.setScene(new Scene(root, WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT));
+            Navigator.getInstance().<ReviewController>show(Navigator.View.REVIEWS,
+                    controller -> controller.setCourse(course));
         } catch (IOException e) {
             showError("Could not load Course Review screen.");
         }
@@ -0,0 +1,184 @@
+package edu.virginia.sde.reviews.database;
+
+import edu.virginia.sde.reviews.Models.Course;
+import edu.virginia.sde.reviews.Models.Review;
+import edu.virginia.sde.reviews.Models.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs {@link DatabaseManager} calls off the caller's thread. Reads share a small pool
+ * sized to the reader connections, writes go through a single thread in submission
+ * order (review writes go straight to the database's group-commit {@link WriteQueue}),
+ * and every returned future completes on the callback executor (the JavaFX
+ * application thread in the desktop app). Cancelling a returned future drops its
+ * result; the query itself is allowed to finish.
+ *
+ * <p>The database may still be opening when this is created: calls made before it is
+ * ready wait for it without blocking the caller, and fail if it could not be opened.
+ */
+public class AsyncDatabaseManager {
+    private static AsyncDatabaseManager instance;
+
+    private final CompletableFuture<DatabaseManager> databaseManager;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final Executor callbackExecutor;
+
+    /**
+     * Creates the application-wide instance. Called once when the application starts.
+     */
+    public static synchronized AsyncDatabaseManager initialize(DatabaseManager databaseManager, Executor callbackExecutor) {
+        return initialize(CompletableFuture.completedFuture(databaseManager), callbackExecutor);
+    }
+
+    /**
+     * Creates the application-wide instance for a database that is opened in the
+     * background, so the first screen can be shown before it is ready.
+     */
+    public static synchronized AsyncDatabaseManager initialize(CompletableFuture<DatabaseManager> databaseManager,
+                                                               Executor callbackExecutor) {
+        if (instance == null) {
+            instance = new AsyncDatabaseManager(databaseManager, callbackExecutor);
+        }
+        return instance;
+    }
+
+    public static synchronized AsyncDatabaseManager getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("AsyncDatabaseManager has not been initialized");
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    public AsyncDatabaseManager(DatabaseManager databaseManager, Executor callbackExecutor) {
+        this(CompletableFuture.completedFuture(databaseManager), callbackExecutor);
+    }
+
+    public AsyncDatabaseManager(CompletableFuture<DatabaseManager> databaseManager, Executor callbackExecutor) {
+        this.databaseManager = databaseManager;
+        this.callbackExecutor = callbackExecutor;
+        // More reader threads than reader connections would only queue inside the pool
+        this.readExecutor = Executors.newFixedThreadPool(DatabaseManager.READER_CONNECTIONS, daemonThreads("db-read"));
+        this.writeExecutor = Executors.newSingleThreadExecutor(daemonThreads("db-write"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public <T> CompletableFuture<T> read(Function<DatabaseManager, T> query) {
+        return submit(query, readExecutor);
+    }
+
+    public <T> CompletableFuture<T> write(Function<DatabaseManager, T> update) {
+        return submit(update, writeExecutor);
+    }
+
+    /**
+     * Hands a future produced by the database's own write queue back on the callback executor.
+     */
+    private <T> CompletableFuture<T> queued(CompletableFuture<T> write) {
+        return write.thenApplyAsync(Function.identity(), callbackExecutor);
+    }
+
+    private <T> CompletableFuture<T> submit(Function<DatabaseManager, T> work, ExecutorService executor) {
+        return databaseManager.thenApplyAsync(work, executor)
+                .thenApplyAsync(Function.identity(), callbackExecutor);
+    }
+
+    public CompletableFuture<User> getUser(String username, String password) {
+        return read(db -> db.getUser(username, password));
+    }
+
+    public CompletableFuture<Boolean> userExists(String username) {
+        return read(db -> db.userExists(username));
+    }
+
+    public CompletableFuture<Boolean> createUser(String username, String password) {
+        return write(db -> db.createUser(username, password));
+    }
+
+    public CompletableFuture<List<Course>> searchCourses(String subject, Integer number, String title) {
+        return read(db -> db.searchCourses(subject, number, title));
+    }
+
+    public CompletableFuture<Course> getCourseById(int courseId) {
+        return read(db -> db.getCourseById(courseId));
+    }
+
+    public CompletableFuture<RatingDistribution> getRatingDistribution(int courseId) {
+        return read(db -> db.getRatingDistribution(courseId));
+    }
+
+    public CompletableFuture<List<Course>> getTopRatedCourses(String subject, int limit) {
+        return read(db -> db.getTopRatedCourses(subject, limit));
+    }
+
+    public CompletableFuture<Boolean> addCourse(String subject, int number, String title) {
+        return write(db -> db.addCourse(subject, number, title));
+    }
+
+    public CompletableFuture<List<Review>> getCourseReviews(int courseId) {
+        return read(db -> db.getCourseReviews(courseId));
+    }
+
+    public CompletableFuture<List<Review>> getUserReviews(User user) {
+        return read(db -> db.getUserReviews(user));
+    }
+
+    public CompletableFuture<ReviewPage> getCourseReviewsPage(int courseId, ReviewPage.Cursor after, int pageSize) {
+        return read(db -> db.getCourseReviewsPage(courseId, after, pageSize));
+    }
+
+    public CompletableFuture<ReviewPage> getUserReviewsPage(User user, ReviewPage.Cursor after, int pageSize) {
+        return read(db -> db.getUserReviewsPage(user, after, pageSize));
+    }
+
+    public CompletableFuture<Review> getUserReviewForCourse(User user, int courseId) {
+        return read(db -> db.getUserReviewForCourse(user, courseId));
+    }
+
+    public CompletableFuture<Boolean> addReview(User user, int courseId, int rating, String comment) {
+        return queued(databaseManager.thenCompose(db -> db.addReviewAsync(user, courseId, rating, comment)));
+    }
+
+    public CompletableFuture<Boolean> updateReview(User user, int reviewId, int rating, String comment) {
+        return queued(databaseManager.thenCompose(db -> db.updateReviewAsync(user, reviewId, rating, comment)));
+    }
+
+    public CompletableFuture<Boolean> deleteReview(User user, int reviewId) {
+        return queued(databaseManager.thenCompose(db -> db.deleteReviewAsync(user, reviewId)));
+    }
+
+    public void close() {
+        readExecutor.shutdown();
+        writeExecutor.shutdown();
+        try {
+            // Let queued writes reach the database before the connections are closed
+            writeExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
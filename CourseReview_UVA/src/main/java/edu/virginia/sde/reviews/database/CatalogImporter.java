@@ -0,0 +1,280 @@
+package edu.virginia.sde.reviews.database;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import edu.virginia.sde.reviews.Models.Course;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk loads a registrar catalog export into the courses table. Accepts CSV with
+ * {@code subject,number,title} columns (an optional header row is skipped) or a JSON
+ * array of {@code {"subject", "number", "title"}} objects. Every record is checked
+ * with {@link DatabaseManager#isValidCourse}, and valid ones are inserted in large
+ * transactions with JDBC batching instead of one autocommit per row. Courses already
+ * in the catalog are skipped and counted as duplicates.
+ */
+public class CatalogImporter {
+    private static final Logger LOGGER = Logger.getLogger(CatalogImporter.class.getName());
+    private static final int BATCH_SIZE = 500;
+    private static final int TRANSACTION_SIZE = 10_000;
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private final DatabaseManager databaseManager;
+
+    public CatalogImporter(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * A record that could not be imported. {@code record} is the 1-based line number for
+     * CSV and the 1-based array position for JSON.
+     */
+    public record Rejection(int record, String reason) {
+    }
+
+    /**
+     * Outcome of one import. Only the first {@value #MAX_REPORTED_REJECTIONS} rejections
+     * are kept, but {@code rejected} counts all of them.
+     */
+    public record Report(int read, int inserted, int duplicates, int rejected,
+                         List<Rejection> rejections, long elapsedNanos) {
+
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : read * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "Read %d records in %.2f s (%.0f rows/s): %d inserted, %d duplicates, %d rejected",
+                    read, elapsedNanos / 1_000_000_000.0, rowsPerSecond(), inserted, duplicates, rejected);
+        }
+    }
+
+    /**
+     * Imports a file, choosing the format from its extension (.csv or .json).
+     */
+    public Report importFile(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean json = name.endsWith(".json");
+        if (!json && !name.endsWith(".csv")) {
+            throw new IllegalArgumentException("Unsupported catalog format: " + path.getFileName());
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return json ? importJson(reader) : importCsv(reader);
+        }
+    }
+
+    public Report importCsv(Reader source) throws IOException {
+        Batch batch = new Batch();
+        BufferedReader reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        String line;
+        int lineNumber = 0;
+        boolean firstRecord = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(line);
+            if (firstRecord) {
+                firstRecord = false;
+                if (fields.get(0).trim().equalsIgnoreCase("subject")) {
+                    continue;
+                }
+            }
+            if (fields.size() != 3) {
+                batch.reject(lineNumber, "expected 3 columns but found " + fields.size());
+                continue;
+            }
+            batch.accept(lineNumber, fields.get(0), fields.get(1), fields.get(2));
+        }
+        return batch.finish();
+    }
+
+    public Report importJson(Reader source) throws IOException {
+        Batch batch = new Batch();
+        JsonReader reader = new JsonReader(source);
+        try {
+            reader.beginArray();
+            int position = 0;
+            while (reader.hasNext()) {
+                position++;
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    batch.reject(position, "expected an object");
+                    continue;
+                }
+                String subject = null;
+                String number = null;
+                String title = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    switch (field) {
+                        case "subject" -> subject = nextStringOrNull(reader);
+                        case "number" -> number = nextStringOrNull(reader);
+                        case "title" -> title = nextStringOrNull(reader);
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                batch.accept(position, subject, number, title);
+            }
+            reader.endArray();
+        } catch (IllegalStateException e) {
+            throw new IOException("Malformed catalog JSON at " + reader.getPath(), e);
+        }
+        return batch.finish();
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+            return reader.nextString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    /**
+     * Splits one CSV line into fields, honouring double-quoted fields with embedded
+     * commas and doubled quotes. Records spanning several lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Validates records as they are read and writes them out a transaction at a time,
+     * so memory use stays flat however large the catalog is.
+     */
+    private class Batch {
+        private final long start = System.nanoTime();
+        private final List<Course> pending = new ArrayList<>(TRANSACTION_SIZE);
+        private final List<Rejection> rejections = new ArrayList<>();
+        private int read = 0;
+        private int inserted = 0;
+        private int accepted = 0;
+        private int rejected = 0;
+
+        void accept(int record, String subject, String numberText, String title) {
+            read++;
+            if (subject == null || numberText == null || title == null) {
+                addRejection(record, "missing subject, number or title");
+                return;
+            }
+            subject = subject.trim();
+            title = title.trim();
+            int number;
+            try {
+                number = Integer.parseInt(numberText.trim());
+            } catch (NumberFormatException e) {
+                addRejection(record, "course number is not an integer: " + numberText);
+                return;
+            }
+            if (!DatabaseManager.isValidCourse(subject, number, title)) {
+                addRejection(record, "invalid course: " + subject + " " + number + " " + title);
+                return;
+            }
+            pending.add(new Course(subject, number, title));
+            accepted++;
+            if (pending.size() == TRANSACTION_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(int record, String reason) {
+            read++;
+            addRejection(record, reason);
+        }
+
+        private void addRejection(int record, String reason) {
+            rejected++;
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add(new Rejection(record, reason));
+            }
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                inserted += databaseManager.addCourses(pending, BATCH_SIZE);
+                pending.clear();
+            }
+        }
+
+        Report finish() {
+            flush();
+            Report report = new Report(read, inserted, accepted - inserted, rejected,
+                    List.copyOf(rejections), System.nanoTime() - start);
+            LOGGER.info("Catalog import finished. " + report);
+            return report;
+        }
+    }
+
+    /**
+     * Command-line entry point: {@code CatalogImporter <catalog.csv|catalog.json>}.
+     * Imports into the application's database file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: CatalogImporter <catalog.csv|catalog.json>");
+            System.exit(2);
+        }
+        int status = 0;
+        DatabaseManager databaseManager = DatabaseManager.initialize();
+        try {
+            Report report = new CatalogImporter(databaseManager).importFile(Path.of(args[0]));
+            System.out.println(report);
+            for (Rejection rejection : report.rejections()) {
+                System.out.println("  record " + rejection.record() + ": " + rejection.reason());
+            }
+            if (report.rejected() > report.rejections().size()) {
+                System.out.println("  ... and " + (report.rejected() - report.rejections().size()) + " more");
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error importing catalog", e);
+            status = 1;
+        } finally {
+            DatabaseManager.shutdown();
+        }
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+}
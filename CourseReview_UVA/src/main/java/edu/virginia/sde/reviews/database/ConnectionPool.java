@@ -0,0 +1,217 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of SQLite connections: a fixed set of read-only reader connections
+ * and a single writer connection. SQLite only allows one writer at a time, so all
+ * writes are serialized through the writer lease while readers run concurrently
+ * against the WAL.
+ */
+public class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final BlockingQueue<Connection> readers;
+    private final List<Connection> allReaders = new ArrayList<>();
+    private final Connection writer;
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+    private volatile boolean closed = false;
+
+    /**
+     * Work to run on a borrowed connection.
+     */
+    @FunctionalInterface
+    public interface LeaseAction {
+        void run(Lease lease) throws SQLException;
+    }
+
+    public ConnectionPool(String url, int readerCount) throws SQLException {
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("Reader count must be at least 1");
+        }
+        // The writer is opened first so it can switch the database to WAL mode
+        writer = openConnection(url, false);
+        statementCaches.put(writer, new StatementCache(writer, STATEMENT_CACHE_SIZE));
+        readers = new ArrayBlockingQueue<>(readerCount);
+        try {
+            for (int i = 0; i < readerCount; i++) {
+                Connection reader = openConnection(url, true);
+                allReaders.add(reader);
+                statementCaches.put(reader, new StatementCache(reader, STATEMENT_CACHE_SIZE));
+                readers.add(reader);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static Connection openConnection(String url, boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            if (readOnly) {
+                statement.execute("PRAGMA query_only = ON");
+            } else {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Borrows a reader connection. The lease must be closed to hand the connection back.
+     */
+    public Lease reader() throws SQLException {
+        ensureOpen();
+        try {
+            Connection connection = readers.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (connection == null) {
+                throw new SQLException("Timed out waiting for a reader connection");
+            }
+            return new Lease(connection, statementCaches.get(connection), () -> readers.offer(connection));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", e);
+        }
+    }
+
+    /**
+     * Takes exclusive ownership of the writer connection until the lease is closed.
+     */
+    public Lease writer() throws SQLException {
+        ensureOpen();
+        try {
+            if (!writerLock.tryLock(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out waiting for the writer connection");
+            }
+            return new Lease(writer, statementCaches.get(writer), writerLock::unlock);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writer connection", e);
+        }
+    }
+
+    /**
+     * Runs an action once on every reader connection, for example to prepare statements
+     * before the first query needs them. All readers are borrowed at once so each one is
+     * visited exactly once; other reads wait until the action has finished.
+     */
+    public void forEachReader(LeaseAction action) throws SQLException {
+        List<Lease> leases = new ArrayList<>(allReaders.size());
+        try {
+            for (int i = 0; i < allReaders.size(); i++) {
+                leases.add(reader());
+            }
+            for (Lease lease : leases) {
+                action.run(lease);
+            }
+        } finally {
+            for (Lease lease : leases) {
+                lease.close();
+            }
+        }
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    /**
+     * Prepared statement cache hits summed over every connection in the pool.
+     */
+    public long statementCacheHits() {
+        return statementCaches.values().stream().mapToLong(StatementCache::hits).sum();
+    }
+
+    /**
+     * Prepared statement cache misses summed over every connection in the pool.
+     */
+    public long statementCacheMisses() {
+        return statementCaches.values().stream().mapToLong(StatementCache::misses).sum();
+    }
+
+    public void close() {
+        closed = true;
+        for (StatementCache cache : statementCaches.values()) {
+            cache.close();
+        }
+        for (Connection reader : allReaders) {
+            closeQuietly(reader);
+        }
+        if (writer != null) {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            if (!connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error closing database connection", e);
+        }
+    }
+
+    /**
+     * A borrowed connection. Closing the lease returns the connection to the pool
+     * rather than closing it.
+     */
+    public static class Lease implements AutoCloseable {
+        private final Connection connection;
+        private final StatementCache statements;
+        private final Runnable release;
+        private boolean released = false;
+
+        private Lease(Connection connection, StatementCache statements, Runnable release) {
+            this.connection = connection;
+            this.statements = statements;
+            this.release = release;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        /**
+         * Returns a cached prepared statement for this connection. The statement must not
+         * be closed by the caller; close its result sets instead.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return statements.prepare(sql);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.virginia.sde.reviews.database;
+
+import edu.virginia.sde.reviews.Models.Course;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * In-memory, id-indexed copy of the course catalog (subject, number and title only).
+ * Loaded lazily on first use and dropped by {@link #invalidate()} whenever courses are
+ * added. Ratings are not cached here because they change with every review.
+ */
+public class CourseCatalog {
+    private final Supplier<List<Course>> loader;
+    private volatile Map<Integer, Course> coursesById;
+
+    public CourseCatalog(Supplier<List<Course>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the cached course with the given id, or null if there is none. The returned
+     * object is shared and must not be modified; callers hand out copies.
+     */
+    public Course get(int courseId) {
+        return snapshot().get(courseId);
+    }
+
+    public Map<Integer, Course> snapshot() {
+        Map<Integer, Course> current = coursesById;
+        if (current == null) {
+            synchronized (this) {
+                current = coursesById;
+                if (current == null) {
+                    Map<Integer, Course> loaded = new HashMap<>();
+                    for (Course course : loader.get()) {
+                        loaded.put(course.getId(), course);
+                    }
+                    current = Collections.unmodifiableMap(loaded);
+                    coursesById = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public synchronized void invalidate() {
+        coursesById = null;
+    }
+}
@@ -3,137 +3,196 @@ package edu.virginia.sde.reviews.database;
 import edu.virginia.sde.reviews.Models.User;
 import edu.virginia.sde.reviews.Models.Course;
 import edu.virginia.sde.reviews.Models.Review;
+import edu.virginia.sde.reviews.metrics.Metrics;
+import edu.virginia.sde.reviews.metrics.OperationMetrics;
 import java.sql.*;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 public class DatabaseManager {
     private static final String DB_URL = "jdbc:sqlite:course_reviews.db";
     private static final Logger LOGGER = Logger.getLogger(DatabaseManager.class.getName());
-    private static User currentUser = null;
-    private Connection connection;
-
-    public DatabaseManager() {
-        initializeDatabase();
+    static final int READER_CONNECTIONS = 4;
+    private static DatabaseManager instance;
+    private static final int MAX_IN_LIST = 500;
+    private static final int WRITE_QUEUE_CAPACITY = 1024;
+    private static final int MAX_WRITE_GROUP = 64;
+
+    // searchCourses has one SQL variant per combination of filters, built once up front
+    static final int SEARCH_BY_SUBJECT = 1;
+    static final int SEARCH_BY_NUMBER = 2;
+    static final int SEARCH_BY_TITLE = 4;
+    private static final String[] SEARCH_QUERIES = new String[8];
+
+    static {
+        for (int filters = 0; filters < SEARCH_QUERIES.length; filters++) {
+            SEARCH_QUERIES[filters] = buildSearchQuery(filters);
+        }
     }
 
-    private void initializeDatabase() {
-        try {
-            connection = DriverManager.getConnection(DB_URL);
-            createTables();
-            addPrebuiltCourses();
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error initializing database", e);
-            throw new RuntimeException("Failed to initialize database", e);
+    static final String COURSE_REVIEWS_QUERY = "SELECT * FROM reviews WHERE course_id = ? ORDER BY timestamp DESC";
+    static final String USER_REVIEWS_QUERY = "SELECT r.*, c.subject, c.number FROM reviews r " +
+                                             "JOIN courses c ON r.course_id = c.id " +
+                                             "WHERE r.user_id = ? ORDER BY r.timestamp DESC";
+
+    // Latency and error counts per public operation, also exported over JMX
+    private static final OperationMetrics USER_EXISTS_METRICS = Metrics.operation("db.userExists");
+    private static final OperationMetrics GET_USER_METRICS = Metrics.operation("db.getUser");
+    private static final OperationMetrics CREATE_USER_METRICS = Metrics.operation("db.createUser");
+    private static final OperationMetrics ADD_COURSE_METRICS = Metrics.operation("db.addCourse");
+    private static final OperationMetrics ADD_COURSES_METRICS = Metrics.operation("db.addCourses");
+    private static final OperationMetrics SEARCH_COURSES_METRICS = Metrics.operation("db.searchCourses");
+    private static final OperationMetrics GET_COURSES_BY_IDS_METRICS = Metrics.operation("db.getCoursesByIds");
+    private static final OperationMetrics GET_COURSE_RATINGS_METRICS = Metrics.operation("db.getCourseRatings");
+    private static final OperationMetrics SEARCH_COURSES_BY_TEXT_METRICS = Metrics.operation("db.searchCoursesByText");
+    private static final OperationMetrics GET_RATING_DISTRIBUTION_METRICS = Metrics.operation("db.getRatingDistribution");
+    private static final OperationMetrics GET_TOP_RATED_COURSES_METRICS = Metrics.operation("db.getTopRatedCourses");
+    private static final OperationMetrics GET_COURSE_REVIEWS_METRICS = Metrics.operation("db.getCourseReviews");
+    private static final OperationMetrics GET_COURSE_REVIEWS_PAGE_METRICS = Metrics.operation("db.getCourseReviewsPage");
+    private static final OperationMetrics GET_USER_REVIEWS_PAGE_METRICS = Metrics.operation("db.getUserReviewsPage");
+    private static final OperationMetrics GET_USER_REVIEW_FOR_COURSE_METRICS = Metrics.operation("db.getUserReviewForCourse");
+    private static final OperationMetrics GET_USER_REVIEW_METRICS = Metrics.operation("db.getUserReview");
+    private static final OperationMetrics GET_USER_REVIEWS_METRICS = Metrics.operation("db.getUserReviews");
+    private static final OperationMetrics ADD_REVIEW_METRICS = Metrics.operation("db.addReview");
+    private static final OperationMetrics UPDATE_REVIEW_METRICS = Metrics.operation("db.updateReview");
+    private static final OperationMetrics DELETE_REVIEW_METRICS = Metrics.operation("db.deleteReview");
+
+    private final ConnectionPool pool;
+    private final WriteQueue writeQueue;
+    private final SlowQueryLog slowQueries = new SlowQueryLog();
+    private final CourseCatalog catalog = new CourseCatalog(this::loadCatalog);
+    private final AtomicLong ratingsVersion = new AtomicLong();
+
+    private static final RowMapper<User> USER_MAPPER = resultSet -> {
+        User user = new User();
+        user.setId(resultSet.getInt("id"));
+        user.setUsername(resultSet.getString("username"));
+        return user;
+    };
+
+    private static final RowMapper<Course> COURSE_MAPPER = resultSet -> {
+        Course course = new Course();
+        course.setId(resultSet.getInt("id"));
+        course.setSubject(resultSet.getString("subject"));
+        course.setNumber(resultSet.getInt("number"));
+        course.setTitle(resultSet.getString("title"));
+        return course;
+    };
+
+    private static final RowMapper<Course> RATED_COURSE_MAPPER = resultSet -> {
+        Course course = COURSE_MAPPER.map(resultSet);
+        course.setAverageRating(resultSet.getDouble("avg_rating"));
+        return course;
+    };
+
+    private static final RowMapper<RatingDistribution> RATING_DISTRIBUTION_MAPPER = resultSet -> new RatingDistribution(
+            resultSet.getInt("stars_1"),
+            resultSet.getInt("stars_2"),
+            resultSet.getInt("stars_3"),
+            resultSet.getInt("stars_4"),
+            resultSet.getInt("stars_5"));
+
+    private static final RowMapper<Map.Entry<Integer, Double>> COURSE_RATING_MAPPER = resultSet -> Map.entry(
+            resultSet.getInt("course_id"),
+            resultSet.getDouble("avg_rating"));
+
+    private static final RowMapper<Review> REVIEW_MAPPER = resultSet -> {
+        Review review = new Review();
+        review.setId(resultSet.getInt("id"));
+        review.setUserId(resultSet.getInt("user_id"));
+        review.setCourseId(resultSet.getInt("course_id"));
+        review.setRating(resultSet.getInt("rating"));
+        review.setComment(resultSet.getString("comment"));
+        review.setTimestamp(resultSet.getTimestamp("timestamp"));
+        return review;
+    };
+
+    // For queries that also join in the reviewed course's subject and number
+    private static final RowMapper<Review> REVIEW_WITH_COURSE_MAPPER = resultSet -> {
+        Review review = REVIEW_MAPPER.map(resultSet);
+        review.setCourseSubject(resultSet.getString("subject"));
+        review.setCourseNumber(resultSet.getInt("number"));
+        return review;
+    };
+
+    /**
+     * Opens the application-wide database. Called once when the application (or the API
+     * server or catalog importer) starts, which then hands the instance to whatever needs
+     * it; the desktop controllers reach it through {@link AsyncDatabaseManager}.
+     */
+    public static synchronized DatabaseManager initialize() {
+        if (instance == null) {
+            instance = new DatabaseManager(DB_URL);
         }
+        return instance;
     }
 
-    private void createTables() {
-        try (Statement statement = connection.createStatement()) {
-            // Create users table
-            statement.execute("""
-                CREATE TABLE IF NOT EXISTS users (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    username TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL
-                )
-            """);
-
-            // Create courses table
-            statement.execute("""
-                CREATE TABLE IF NOT EXISTS courses (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    subject TEXT NOT NULL,
-                    number INTEGER NOT NULL,
-                    title TEXT NOT NULL,
-                    UNIQUE(subject, number, title)
-                )
-            """);
-
-            // Create reviews table
-            statement.execute("""
-                CREATE TABLE IF NOT EXISTS reviews (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    user_id INTEGER NOT NULL,
-                    course_id INTEGER NOT NULL,
-                    rating INTEGER NOT NULL CHECK (rating >= 1 AND rating <= 5),
-                    comment TEXT,
-                    timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    FOREIGN KEY (user_id) REFERENCES users(id),
-                    FOREIGN KEY (course_id) REFERENCES courses(id),
-                    UNIQUE(user_id, course_id)
-                )
-            """);
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error creating tables", e);
-            throw new RuntimeException("Failed to create database tables", e);
+    /**
+     * Closes the application-wide database. Called once when the application stops.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
         }
     }
 
-    private boolean courseExists(String subject, int number, String title) {
-        String query = "SELECT COUNT(*) FROM courses WHERE subject = ? AND number = ? AND title = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, subject);
-            statement.setInt(2, number);
-            statement.setString(3, title);
-            ResultSet resultSet = statement.executeQuery();
-            return resultSet.next() && resultSet.getInt(1) > 0;
+    public DatabaseManager(String url) {
+        try {
+            pool = new ConnectionPool(url, READER_CONNECTIONS);
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking if course exists", e);
-            return false;
+            LOGGER.log(Level.SEVERE, "Error initializing database", e);
+            throw new RuntimeException("Failed to initialize database", e);
         }
+        initializeDatabase();
+        writeQueue = new WriteQueue(pool, WRITE_QUEUE_CAPACITY, MAX_WRITE_GROUP);
     }
 
-    private void addPrebuiltCourses() {
-        // List of courses to add if they don't exist
-        Course[] prebuiltCourses = {
-            new Course(0, "CS", 3140, "Software Development Essentials"),
-            new Course(0, "CS", 4501, "Advanced Software Development"),
-            new Course(0, "STS", 2600, "Engineering Ethics"),
-            new Course(0, "CHEM", 1410, "Introductory College Chemistry I"),
-            new Course(0, "MATH", 1310, "Calculus I"),
-            new Course(0, "ECON", 2010, "Principles of Microeconomics"),
-            new Course(0, "PHYS", 2010, "Principles of Physics 1")
-        };
-
-        for (Course course : prebuiltCourses) {
-            if (!courseExists(course.getSubject(), course.getNumber(), course.getTitle())) {
-                addCourse(course.getSubject(), course.getNumber(), course.getTitle());
-            }
+    private void initializeDatabase() {
+        try (ConnectionPool.Lease lease = pool.writer()) {
+            new SchemaMigrator(Migrations.ALL).migrate(lease.connection());
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error initializing database", e);
+            throw new RuntimeException("Failed to initialize database", e);
         }
     }
 
     public boolean userExists(String username) {
         String query = "SELECT COUNT(*) FROM users WHERE username = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, username);
-            ResultSet resultSet = statement.executeQuery();
-            return resultSet.next() && resultSet.getInt(1) > 0;
+        long startNanos = System.nanoTime();
+        try {
+            return queryList(query, resultSet -> resultSet.getInt(1), username).get(0) > 0;
         } catch (SQLException e) {
+            USER_EXISTS_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error checking if user exists", e);
             throw new RuntimeException("Failed to check if user exists", e);
+        } finally {
+            USER_EXISTS_METRICS.recordSince(startNanos);
         }
     }
 
     public User getUser(String username, String password) {
         String query = "SELECT id, username FROM users WHERE username = ? AND password = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, username);
-            statement.setString(2, password);
-            ResultSet resultSet = statement.executeQuery();
-            
-            if (resultSet.next()) {
-                User user = new User();
-                user.setId(resultSet.getInt("id"));
-                user.setUsername(resultSet.getString("username"));
-                return user;
-            }
-            return null;
+        long startNanos = System.nanoTime();
+        try {
+            List<User> users = queryList(query, USER_MAPPER, username, new SlowQueryLog.Redacted(password));
+            return users.isEmpty() ? null : users.get(0);
         } catch (SQLException e) {
+            GET_USER_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error getting user", e);
             throw new RuntimeException("Failed to get user", e);
+        } finally {
+            GET_USER_METRICS.recordSince(startNanos);
         }
     }
 
@@ -143,204 +202,766 @@ public class DatabaseManager {
         }
 
         String query = "INSERT INTO users (username, password) VALUES (?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, username);
-            statement.setString(2, password);
-            statement.executeUpdate();
+        long startNanos = System.nanoTime();
+        try {
+            update(query, username, new SlowQueryLog.Redacted(password));
             return true;
         } catch (SQLException e) {
+            CREATE_USER_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error creating user", e);
             return false;
+        } finally {
+            CREATE_USER_METRICS.recordSince(startNanos);
         }
     }
 
-    public void setCurrentUser(User user) {
-        currentUser = user;
-    }
-
-    public User getCurrentUser() {
-        return currentUser;
+    public void close() {
+        // Drain queued writes while the writer connection is still open
+        writeQueue.close();
+        pool.close();
     }
 
-    public void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error closing database connection", e);
-        }
+    /**
+     * The rules every course must satisfy, whether added from the UI or imported in bulk.
+     */
+    public static boolean isValidCourse(String subject, int number, String title) {
+        return subject != null && subject.length() >= 2 && subject.length() <= 4 &&
+            subject.matches("[A-Za-z]+") && number >= 1000 && number <= 9999 &&
+            title != null && title.length() >= 1 && title.length() <= 50;
     }
 
     public boolean addCourse(String subject, int number, String title) {
         // Validate input
-        if (subject == null || subject.length() < 2 || subject.length() > 4 || 
-            !subject.matches("[A-Za-z]+") || number < 1000 || number > 9999 || 
-            title == null || title.length() < 1 || title.length() > 50) {
+        if (!isValidCourse(subject, number, title)) {
             return false;
         }
 
         String query = "INSERT INTO courses (subject, number, title) VALUES (?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, subject.toUpperCase());
-            statement.setInt(2, number);
-            statement.setString(3, title);
-            statement.executeUpdate();
+        long startNanos = System.nanoTime();
+        try {
+            update(query, subject.toUpperCase(), number, title);
+            catalog.invalidate();
             return true;
         } catch (SQLException e) {
+            ADD_COURSE_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error adding course", e);
             return false;
+        } finally {
+            ADD_COURSE_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Inserts already-validated courses in a single transaction using JDBC batches of
+     * {@code batchSize} rows. Courses that collide with an existing (subject, number, title)
+     * are skipped. Returns how many rows were actually inserted.
+     */
+    public int addCourses(List<Course> courses, int batchSize) {
+        String query = "INSERT OR IGNORE INTO courses (subject, number, title) VALUES (?, ?, ?)";
+        int inserted = 0;
+        long startNanos = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.writer()) {
+            Connection connection = lease.connection();
+            PreparedStatement statement = lease.prepare(query);
+            connection.setAutoCommit(false);
+            try {
+                int pending = 0;
+                for (Course course : courses) {
+                    bind(statement, course.getSubject().toUpperCase(), course.getNumber(), course.getTitle());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        inserted += countInserted(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    inserted += countInserted(statement.executeBatch());
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                // The statement is cached, so it must not keep half a batch around
+                statement.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            ADD_COURSES_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error adding courses", e);
+            throw new RuntimeException("Failed to add courses", e);
+        } finally {
+            ADD_COURSES_METRICS.recordSince(startNanos);
         }
+        if (inserted > 0) {
+            catalog.invalidate();
+        }
+        return inserted;
     }
 
+    private static int countInserted(int[] updateCounts) {
+        int inserted = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                inserted += count;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Courses matching every non-null filter, ordered by id. The subject is matched
+     * ignoring case and the number exactly. The title filter goes through the full-text
+     * index: every word of it must be a prefix of a word of the title, so "calc" and
+     * "intro calc" find "Introduction to Calculus" but "culus" does not. For ranked
+     * free-text search across subject, number and title, see {@link #searchCoursesByText}.
+     */
     public List<Course> searchCourses(String subject, Integer number, String title) {
-        StringBuilder queryBuilder = new StringBuilder(
-            "SELECT c.*, COALESCE(AVG(r.rating), 0) as avg_rating " +
-            "FROM courses c " +
-            "LEFT JOIN reviews r ON c.id = r.course_id " +
-            "WHERE 1=1 ");
+        int filters = 0;
         List<Object> params = new ArrayList<>();
 
         if (subject != null && !subject.isEmpty()) {
-            queryBuilder.append("AND UPPER(c.subject) = UPPER(?) ");
+            filters |= SEARCH_BY_SUBJECT;
             params.add(subject);
         }
         if (number != null) {
-            queryBuilder.append("AND c.number = ? ");
+            filters |= SEARCH_BY_NUMBER;
             params.add(number);
         }
         if (title != null && !title.isEmpty()) {
-            queryBuilder.append("AND UPPER(c.title) LIKE UPPER(?) ");
-            params.add("%" + title + "%");
+            String match = toFtsQuery(title);
+            if (match == null) {
+                return new ArrayList<>();
+            }
+            filters |= SEARCH_BY_TITLE;
+            params.add("title : (" + match + ")");
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            return queryList(SEARCH_QUERIES[filters], RATED_COURSE_MAPPER, params.toArray());
+        } catch (SQLException e) {
+            SEARCH_COURSES_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error searching courses", e);
+            throw new RuntimeException("Failed to search courses", e);
+        } finally {
+            SEARCH_COURSES_METRICS.recordSince(startNanos);
+        }
+    }
+
+    // The SQL searchCourses runs for a combination of SEARCH_BY_* filters
+    static String searchQuery(int filters) {
+        return SEARCH_QUERIES[filters];
+    }
+
+    private static String buildSearchQuery(int filters) {
+        // Averages come from course_rating_stats, which triggers keep in step with reviews
+        StringBuilder queryBuilder = new StringBuilder(
+            "SELECT c.*, COALESCE(CAST(s.rating_sum AS REAL) / NULLIF(s.review_count, 0), 0) as avg_rating " +
+            "FROM courses c " +
+            "LEFT JOIN course_rating_stats s ON s.course_id = c.id " +
+            "WHERE 1=1 ");
+        if ((filters & SEARCH_BY_SUBJECT) != 0) {
+            // subject is declared COLLATE NOCASE, so this comparison can use the unique index
+            queryBuilder.append("AND c.subject = ? ");
         }
+        if ((filters & SEARCH_BY_NUMBER) != 0) {
+            queryBuilder.append("AND c.number = ? ");
+        }
+        if ((filters & SEARCH_BY_TITLE) != 0) {
+            // Every word of the title filter must prefix-match a word of the course title
+            queryBuilder.append("AND c.id IN (SELECT rowid FROM courses_fts WHERE courses_fts MATCH ?) ");
+        }
+        queryBuilder.append("ORDER BY c.id");
+        return queryBuilder.toString();
+    }
 
-        queryBuilder.append("GROUP BY c.id");
+    /**
+     * Prepared statement cache hits across all pooled connections.
+     */
+    public long statementCacheHits() {
+        return pool.statementCacheHits();
+    }
+
+    /**
+     * Prepared statement cache misses across all pooled connections.
+     */
+    public long statementCacheMisses() {
+        return pool.statementCacheMisses();
+    }
 
-        List<Course> courses = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(queryBuilder.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                statement.setObject(i + 1, params.get(i));
+    /**
+     * Looks up a single course by id, served from the in-memory catalog plus a primary-key
+     * read of its rating. Returns null if no such course exists.
+     */
+    public Course getCourseById(int courseId) {
+        return getCoursesByIds(List.of(courseId)).get(courseId);
+    }
+
+    /**
+     * Looks up several courses by id at once. Ids with no matching course are left out of
+     * the returned map.
+     */
+    public Map<Integer, Course> getCoursesByIds(Collection<Integer> courseIds) {
+        Map<Integer, Course> courses = new HashMap<>();
+        for (Integer courseId : courseIds) {
+            Course cached = catalog.get(courseId);
+            if (cached != null) {
+                courses.put(courseId, new Course(cached.getId(), cached.getSubject(), cached.getNumber(), cached.getTitle()));
             }
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                Course course = new Course();
-                course.setId(resultSet.getInt("id"));
-                course.setSubject(resultSet.getString("subject"));
-                course.setNumber(resultSet.getInt("number"));
-                course.setTitle(resultSet.getString("title"));
-                course.setAverageRating(resultSet.getDouble("avg_rating"));
-                courses.add(course);
+        }
+        if (courses.isEmpty()) {
+            return courses;
+        }
+
+        List<Integer> ids = new ArrayList<>(courses.keySet());
+        long startNanos = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.reader()) {
+            for (int start = 0; start < ids.size(); start += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(start, Math.min(start + MAX_IN_LIST, ids.size()));
+                String query = "SELECT course_id, CAST(rating_sum AS REAL) / NULLIF(review_count, 0) as avg_rating " +
+                              "FROM course_rating_stats WHERE course_id IN (" +
+                              String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                long chunkStartNanos = System.nanoTime();
+                try (PreparedStatement statement = lease.connection().prepareStatement(query)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setInt(i + 1, chunk.get(i));
+                    }
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        courses.get(resultSet.getInt("course_id")).setAverageRating(resultSet.getDouble("avg_rating"));
+                    }
+                }
+                slowQueries.record(lease.connection(), query, chunk.toArray(), chunkStartNanos);
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error searching courses", e);
-            throw new RuntimeException("Failed to search courses", e);
+            GET_COURSES_BY_IDS_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting course ratings", e);
+            throw new RuntimeException("Failed to get course ratings", e);
+        } finally {
+            GET_COURSES_BY_IDS_METRICS.recordSince(startNanos);
         }
         return courses;
     }
 
-    public boolean addReview(int courseId, int rating, String comment) {
-        if (currentUser == null) {
-            return false;
+    /**
+     * Returns the whole catalog, from the in-memory copy, with each course's average
+     * rating read in one pass over the rating counters. Courses are in no particular order.
+     */
+    public List<Course> getRatedCatalog() {
+        Map<Integer, Double> ratings = getCourseRatings();
+        Collection<Course> cached = catalog.snapshot().values();
+        List<Course> courses = new ArrayList<>(cached.size());
+        for (Course course : cached) {
+            Course copy = new Course(course.getId(), course.getSubject(), course.getNumber(), course.getTitle());
+            copy.setAverageRating(ratings.getOrDefault(course.getId(), 0.0));
+            courses.add(copy);
+        }
+        return courses;
+    }
+
+    /**
+     * Returns the average rating of every reviewed course, keyed by course id. Courses
+     * with no reviews are left out.
+     */
+    public Map<Integer, Double> getCourseRatings() {
+        String query = "SELECT course_id, CAST(rating_sum AS REAL) / review_count as avg_rating " +
+                      "FROM course_rating_stats WHERE review_count > 0";
+        long startNanos = System.nanoTime();
+        try {
+            Map<Integer, Double> ratings = new HashMap<>();
+            for (Map.Entry<Integer, Double> rating : queryList(query, COURSE_RATING_MAPPER)) {
+                ratings.put(rating.getKey(), rating.getValue());
+            }
+            return ratings;
+        } catch (SQLException e) {
+            GET_COURSE_RATINGS_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting course ratings", e);
+            throw new RuntimeException("Failed to get course ratings", e);
+        } finally {
+            GET_COURSE_RATINGS_METRICS.recordSince(startNanos);
         }
+    }
 
-        String query = "INSERT INTO reviews (user_id, course_id, rating, comment) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, currentUser.getId());
-            statement.setInt(2, courseId);
-            statement.setInt(3, rating);
-            statement.setString(4, comment);
-            statement.executeUpdate();
-            return true;
+    /**
+     * A counter that goes up whenever a review written through this instance changes a
+     * row, so holders of course ratings can tell cheaply whether theirs may be stale.
+     * Read it before reading the ratings it is meant to vouch for.
+     */
+    public long ratingsVersion() {
+        return ratingsVersion.get();
+    }
+
+    /**
+     * Returns how many reviews of the course gave each rating. This is a primary-key read
+     * of the counters the review triggers maintain, so its cost does not depend on how
+     * many reviews the course has. Courses with no reviews get {@link RatingDistribution#EMPTY}.
+     */
+    public RatingDistribution getRatingDistribution(int courseId) {
+        String query = "SELECT stars_1, stars_2, stars_3, stars_4, stars_5 FROM course_rating_stats WHERE course_id = ?";
+        long startNanos = System.nanoTime();
+        try {
+            List<RatingDistribution> rows = queryList(query, RATING_DISTRIBUTION_MAPPER, courseId);
+            return rows.isEmpty() ? RatingDistribution.EMPTY : rows.get(0);
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error adding review", e);
-            return false;
+            GET_RATING_DISTRIBUTION_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting rating distribution", e);
+            throw new RuntimeException("Failed to get rating distribution", e);
+        } finally {
+            GET_RATING_DISTRIBUTION_METRICS.recordSince(startNanos);
         }
     }
 
-    public List<Review> getCourseReviews(int courseId) {
-        String query = "SELECT * FROM reviews WHERE course_id = ? ORDER BY timestamp DESC";
-        List<Review> reviews = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, courseId);
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                Review review = new Review();
-                review.setId(resultSet.getInt("id"));
-                review.setUserId(resultSet.getInt("user_id"));
-                review.setCourseId(resultSet.getInt("course_id"));
-                review.setRating(resultSet.getInt("rating"));
-                review.setComment(resultSet.getString("comment"));
-                review.setTimestamp(resultSet.getTimestamp("timestamp"));
-                reviews.add(review);
+    /**
+     * Returns up to {@code limit} reviewed courses with the highest Bayesian score, best
+     * first, across the catalog or within one subject when {@code subject} is not null.
+     * Each course's average rating is set as usual. Scores are kept up to date by
+     * triggers as reviews change, so this reads only the top of an index rather than
+     * aggregating reviews.
+     */
+    public List<Course> getTopRatedCourses(String subject, int limit) {
+        String query = "SELECT c.*, CAST(s.rating_sum AS REAL) / s.review_count as avg_rating " +
+                      "FROM course_rating_stats s " +
+                      "JOIN courses c ON c.id = s.course_id " +
+                      "WHERE s.review_count > 0 " +
+                      (subject == null ? "" : "AND c.subject = ? ") +
+                      "ORDER BY s.bayesian_score DESC, s.course_id LIMIT ?";
+        long startNanos = System.nanoTime();
+        try {
+            return subject == null
+                ? queryList(query, RATED_COURSE_MAPPER, limit)
+                : queryList(query, RATED_COURSE_MAPPER, subject, limit);
+        } catch (SQLException e) {
+            GET_TOP_RATED_COURSES_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting top rated courses", e);
+            throw new RuntimeException("Failed to get top rated courses", e);
+        } finally {
+            GET_TOP_RATED_COURSES_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Moves the prior that Bayesian scores are pulled towards to the current mean of all
+     * ratings, rescoring every course, if it has drifted by at least {@code minDrift}.
+     * Reads one row per course rather than the reviews. Returns whether scores changed.
+     */
+    public boolean refreshRatingPrior(double minDrift) {
+        String query = "WITH overall AS (" +
+                      "SELECT CAST(SUM(rating_sum) AS REAL) / NULLIF(SUM(review_count), 0) as mean FROM course_rating_stats) " +
+                      "UPDATE rating_prior SET mean = (SELECT mean FROM overall) " +
+                      "WHERE id = 1 AND ABS(rating_prior.mean - (SELECT mean FROM overall)) >= ?";
+        try {
+            return update(query, minDrift) > 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error refreshing rating prior", e);
+            throw new RuntimeException("Failed to refresh rating prior", e);
+        }
+    }
+
+    private List<Course> loadCatalog() {
+        try {
+            return queryList("SELECT id, subject, number, title FROM courses", COURSE_MAPPER);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading course catalog", e);
+            throw new RuntimeException("Failed to load course catalog", e);
+        }
+    }
+
+    /**
+     * Loads the in-memory course catalog now rather than on the first lookup that needs it.
+     */
+    public void warmCatalog() {
+        catalog.snapshot();
+    }
+
+    /**
+     * Prepares every searchCourses variant on every reader connection, so the first
+     * searches after startup skip SQLite's statement compilation.
+     */
+    public void warmStatements() {
+        try {
+            pool.forEachReader(lease -> {
+                for (String query : SEARCH_QUERIES) {
+                    lease.prepare(query);
+                }
+            });
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error preparing statements", e);
+            throw new RuntimeException("Failed to prepare statements", e);
+        }
+    }
+
+    /**
+     * Free-text course search over subject, number and title. Each word is matched as a
+     * prefix and results are ordered by bm25 relevance, weighting subject and number
+     * matches above title matches.
+     */
+    public List<Course> searchCoursesByText(String text, int limit) {
+        String match = toFtsQuery(text);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+
+        String query = "SELECT c.*, COALESCE(CAST(s.rating_sum AS REAL) / NULLIF(s.review_count, 0), 0) as avg_rating " +
+                      "FROM courses_fts f " +
+                      "JOIN courses c ON c.id = f.rowid " +
+                      "LEFT JOIN course_rating_stats s ON s.course_id = c.id " +
+                      "WHERE courses_fts MATCH ? " +
+                      "ORDER BY bm25(courses_fts, 10.0, 5.0, 1.0) " +
+                      "LIMIT ?";
+        long startNanos = System.nanoTime();
+        try {
+            return queryList(query, RATED_COURSE_MAPPER, match, limit);
+        } catch (SQLException e) {
+            SEARCH_COURSES_BY_TEXT_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error searching courses by text", e);
+            throw new RuntimeException("Failed to search courses by text", e);
+        } finally {
+            SEARCH_COURSES_BY_TEXT_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Turns user input into an FTS5 query of quoted prefix terms, e.g. {@code "calc"* "i"*}.
+     * Returns null when the input has no searchable words.
+     */
+    static String toFtsQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append('"').append(word).append("\"*");
             }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    public boolean addReview(User user, int courseId, int rating, String comment) {
+        return addReviewAsync(user, courseId, rating, comment).join();
+    }
+
+    /**
+     * Queues the review insert on the write pipeline. The future completes once the
+     * group commit containing it is durable.
+     */
+    public CompletableFuture<Boolean> addReviewAsync(User user, int courseId, int rating, String comment) {
+        if (user == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        String query = "INSERT INTO reviews (user_id, course_id, rating, comment) VALUES (?, ?, ?, ?)";
+        return queueUpdate(ADD_REVIEW_METRICS, "Error adding review", query, user.getId(), courseId, rating, comment)
+                .thenApply(this::reviewsChanged);
+    }
+
+    public List<Review> getCourseReviews(int courseId) {
+        long startNanos = System.nanoTime();
+        try {
+            return queryList(COURSE_REVIEWS_QUERY, REVIEW_MAPPER, courseId);
         } catch (SQLException e) {
+            GET_COURSE_REVIEWS_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error getting course reviews", e);
             throw new RuntimeException("Failed to get course reviews", e);
+        } finally {
+            GET_COURSE_REVIEWS_METRICS.recordSince(startNanos);
         }
-        return reviews;
     }
 
-    public List<Review> getUserReviews() {
-        if (currentUser == null) {
-            return new ArrayList<>();
+    /**
+     * Streams every review of a course, newest first, without materializing the list.
+     * The stream holds a reader connection until it is closed.
+     */
+    public Stream<Review> streamCourseReviews(int courseId) {
+        try {
+            return queryStream(COURSE_REVIEWS_QUERY, REVIEW_MAPPER, courseId);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error streaming course reviews", e);
+            throw new RuntimeException("Failed to stream course reviews", e);
+        }
+    }
+
+    /**
+     * Streams the whole reviews table in id order for exports and analytics. The stream
+     * holds a reader connection until it is closed.
+     */
+    public Stream<Review> streamAllReviews() {
+        try {
+            return queryStream("SELECT * FROM reviews ORDER BY id", REVIEW_MAPPER);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error streaming reviews", e);
+            throw new RuntimeException("Failed to stream reviews", e);
+        }
+    }
+
+    /**
+     * Streams the whole course catalog in id order. The stream holds a reader connection
+     * until it is closed.
+     */
+    public Stream<Course> streamCourses() {
+        try {
+            return queryStream("SELECT id, subject, number, title FROM courses ORDER BY id", COURSE_MAPPER);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error streaming courses", e);
+            throw new RuntimeException("Failed to stream courses", e);
+        }
+    }
+
+    /**
+     * Returns up to {@code pageSize} reviews of a course, newest first, starting after
+     * {@code after} (or from the newest review when it is null).
+     */
+    public ReviewPage getCourseReviewsPage(int courseId, ReviewPage.Cursor after, int pageSize) {
+        String query = "SELECT * FROM reviews WHERE course_id = ? " +
+                      (after == null ? "" : "AND (timestamp, id) < (?, ?) ") +
+                      "ORDER BY timestamp DESC, id DESC LIMIT ?";
+        long startNanos = System.nanoTime();
+        try {
+            Object[] params = after == null
+                ? new Object[] { courseId }
+                : new Object[] { courseId, after.timestamp(), after.id() };
+            return queryPage(query, pageSize, REVIEW_MAPPER, params);
+        } catch (SQLException e) {
+            GET_COURSE_REVIEWS_PAGE_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting course reviews page", e);
+            throw new RuntimeException("Failed to get course reviews page", e);
+        } finally {
+            GET_COURSE_REVIEWS_PAGE_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Returns up to {@code pageSize} of the user's reviews, newest first, starting
+     * after {@code after} (or from the newest review when it is null).
+     */
+    public ReviewPage getUserReviewsPage(User user, ReviewPage.Cursor after, int pageSize) {
+        if (user == null) {
+            return new ReviewPage(new ArrayList<>(), null);
         }
 
         String query = "SELECT r.*, c.subject, c.number FROM reviews r " +
                       "JOIN courses c ON r.course_id = c.id " +
-                      "WHERE r.user_id = ? ORDER BY r.timestamp DESC";
-        List<Review> reviews = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, currentUser.getId());
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                Review review = new Review();
-                review.setId(resultSet.getInt("id"));
-                review.setUserId(resultSet.getInt("user_id"));
-                review.setCourseId(resultSet.getInt("course_id"));
-                review.setRating(resultSet.getInt("rating"));
-                review.setComment(resultSet.getString("comment"));
-                review.setTimestamp(resultSet.getTimestamp("timestamp"));
-                reviews.add(review);
-            }
+                      "WHERE r.user_id = ? " +
+                      (after == null ? "" : "AND (r.timestamp, r.id) < (?, ?) ") +
+                      "ORDER BY r.timestamp DESC, r.id DESC LIMIT ?";
+        long startNanos = System.nanoTime();
+        try {
+            Object[] params = after == null
+                ? new Object[] { user.getId() }
+                : new Object[] { user.getId(), after.timestamp(), after.id() };
+            return queryPage(query, pageSize, REVIEW_WITH_COURSE_MAPPER, params);
+        } catch (SQLException e) {
+            GET_USER_REVIEWS_PAGE_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting user reviews page", e);
+            throw new RuntimeException("Failed to get user reviews page", e);
+        } finally {
+            GET_USER_REVIEWS_PAGE_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Returns the user's review of a course, or null if they have not reviewed it.
+     */
+    public Review getUserReviewForCourse(User user, int courseId) {
+        if (user == null) {
+            return null;
+        }
+
+        String query = "SELECT * FROM reviews WHERE user_id = ? AND course_id = ?";
+        long startNanos = System.nanoTime();
+        try {
+            List<Review> reviews = queryList(query, REVIEW_MAPPER, user.getId(), courseId);
+            return reviews.isEmpty() ? null : reviews.get(0);
+        } catch (SQLException e) {
+            GET_USER_REVIEW_FOR_COURSE_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting user review for course", e);
+            throw new RuntimeException("Failed to get user review for course", e);
+        } finally {
+            GET_USER_REVIEW_FOR_COURSE_METRICS.recordSince(startNanos);
+        }
+    }
+
+    /**
+     * Returns one of the user's own reviews by id, or null if there is no such review or
+     * it belongs to someone else.
+     */
+    public Review getUserReview(User user, int reviewId) {
+        if (user == null) {
+            return null;
+        }
+
+        String query = "SELECT * FROM reviews WHERE id = ? AND user_id = ?";
+        long startNanos = System.nanoTime();
+        try {
+            List<Review> reviews = queryList(query, REVIEW_MAPPER, reviewId, user.getId());
+            return reviews.isEmpty() ? null : reviews.get(0);
         } catch (SQLException e) {
+            GET_USER_REVIEW_METRICS.recordError();
+            LOGGER.log(Level.SEVERE, "Error getting user review", e);
+            throw new RuntimeException("Failed to get user review", e);
+        } finally {
+            GET_USER_REVIEW_METRICS.recordSince(startNanos);
+        }
+    }
+
+    public List<Review> getUserReviews(User user) {
+        if (user == null) {
+            return new ArrayList<>();
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            return queryList(USER_REVIEWS_QUERY, REVIEW_WITH_COURSE_MAPPER, user.getId());
+        } catch (SQLException e) {
+            GET_USER_REVIEWS_METRICS.recordError();
             LOGGER.log(Level.SEVERE, "Error getting user reviews", e);
             throw new RuntimeException("Failed to get user reviews", e);
+        } finally {
+            GET_USER_REVIEWS_METRICS.recordSince(startNanos);
         }
-        return reviews;
     }
 
-    public boolean updateReview(int reviewId, int rating, String comment) {
-        if (currentUser == null) {
-            return false;
+    public boolean updateReview(User user, int reviewId, int rating, String comment) {
+        return updateReviewAsync(user, reviewId, rating, comment).join();
+    }
+
+    public CompletableFuture<Boolean> updateReviewAsync(User user, int reviewId, int rating, String comment) {
+        if (user == null) {
+            return CompletableFuture.completedFuture(false);
         }
 
         String query = "UPDATE reviews SET rating = ?, comment = ?, timestamp = CURRENT_TIMESTAMP " +
                       "WHERE id = ? AND user_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, rating);
-            statement.setString(2, comment);
-            statement.setInt(3, reviewId);
-            statement.setInt(4, currentUser.getId());
-            return statement.executeUpdate() > 0;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error updating review", e);
-            return false;
-        }
+        return queueUpdate(UPDATE_REVIEW_METRICS, "Error updating review", query, rating, comment, reviewId, user.getId())
+                .thenApply(this::reviewsChanged);
     }
 
-    public boolean deleteReview(int reviewId) {
-        if (currentUser == null) {
-            return false;
+    public boolean deleteReview(User user, int reviewId) {
+        return deleteReviewAsync(user, reviewId).join();
+    }
+
+    public CompletableFuture<Boolean> deleteReviewAsync(User user, int reviewId) {
+        if (user == null) {
+            return CompletableFuture.completedFuture(false);
         }
 
         String query = "DELETE FROM reviews WHERE id = ? AND user_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, reviewId);
-            statement.setInt(2, currentUser.getId());
-            return statement.executeUpdate() > 0;
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error deleting review", e);
+        return queueUpdate(DELETE_REVIEW_METRICS, "Error deleting review", query, reviewId, user.getId())
+                .thenApply(this::reviewsChanged);
+    }
+
+    // A review write that changed a row has moved that course's rating
+    private boolean reviewsChanged(Integer rows) {
+        if (rows == null || rows == 0) {
             return false;
         }
+        ratingsVersion.incrementAndGet();
+        return true;
+    }
+
+    // Statements come from the per-connection cache and stay open; only result sets are closed.
+    // Timing covers stepping through the rows, since SQLite does most of its work in next().
+
+    private <T> List<T> queryList(String query, RowMapper<T> mapper, Object... params) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.reader()) {
+            long startNanos = System.nanoTime();
+            PreparedStatement statement = lease.prepare(query);
+            bind(statement, params);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(mapper.map(resultSet));
+                }
+            }
+            slowQueries.record(lease.connection(), query, params, startNanos);
+            return rows;
+        }
+    }
+
+    // Reads one extra row to find out whether another page exists; the query must end in LIMIT ?
+    private ReviewPage queryPage(String query, int pageSize, RowMapper<Review> mapper, Object... params) throws SQLException {
+        Object[] bound = Arrays.copyOf(params, params.length + 1);
+        bound[params.length] = pageSize + 1;
+        try (ConnectionPool.Lease lease = pool.reader()) {
+            long startNanos = System.nanoTime();
+            PreparedStatement statement = lease.prepare(query);
+            bind(statement, bound);
+            List<Review> reviews = new ArrayList<>();
+            ReviewPage.Cursor last = null;
+            boolean hasMore = false;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (reviews.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    Review review = mapper.map(resultSet);
+                    reviews.add(review);
+                    last = new ReviewPage.Cursor(resultSet.getString("timestamp"), review.getId());
+                }
+            }
+            slowQueries.record(lease.connection(), query, bound, startNanos);
+            return new ReviewPage(reviews, hasMore ? last : null);
+        }
+    }
+
+    private <T> Stream<T> queryStream(String query, RowMapper<T> mapper, Object... params) throws SQLException {
+        ConnectionPool.Lease lease = pool.reader();
+        try {
+            PreparedStatement statement = lease.prepare(query);
+            bind(statement, params);
+            ResultSet resultSet = statement.executeQuery();
+            return ResultSetStream.of(resultSet, mapper, resultSet, lease);
+        } catch (SQLException | RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs an update through the write queue. Failures are logged and reported as null
+     * rather than thrown, matching how the synchronous write methods return false.
+     */
+    private CompletableFuture<Integer> queueUpdate(OperationMetrics metrics, String errorMessage, String query, Object... params) {
+        // Timed from submission to commit, so waiting behind other queued writes is included
+        long startNanos = System.nanoTime();
+        return writeQueue.submit(lease -> {
+            long executeNanos = System.nanoTime();
+            PreparedStatement statement = lease.prepare(query);
+            bind(statement, params);
+            int rows = statement.executeUpdate();
+            slowQueries.record(lease.connection(), query, params, executeNanos);
+            return rows;
+        }).handle((rows, e) -> {
+            metrics.recordSince(startNanos);
+            if (e != null) {
+                metrics.recordError();
+                LOGGER.log(Level.SEVERE, errorMessage, e);
+                return null;
+            }
+            return rows;
+        });
+    }
+
+    private int update(String query, Object... params) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.writer()) {
+            long startNanos = System.nanoTime();
+            PreparedStatement statement = lease.prepare(query);
+            bind(statement, params);
+            int rows = statement.executeUpdate();
+            slowQueries.record(lease.connection(), query, params, startNanos);
+            return rows;
+        }
+    }
+
+    static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            statement.setObject(i + 1, param instanceof SlowQueryLog.Redacted redacted ? redacted.value() : param);
+        }
     }
 }
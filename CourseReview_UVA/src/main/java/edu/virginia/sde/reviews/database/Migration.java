@@ -0,0 +1,29 @@
+package edu.virginia.sde.reviews.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One versioned schema change. The checksum covers the SQL text, so editing a
+ * migration that has already been applied to a database is detected on the next
+ * upgrade of that database.
+ */
+public record Migration(int version, String description, List<String> statements) {
+
+    public Migration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1");
+        }
+        statements = List.copyOf(statements);
+    }
+
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        for (String statement : statements) {
+            crc.update(statement.strip().getBytes(StandardCharsets.UTF_8));
+            crc.update(';');
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,240 @@
+package edu.virginia.sde.reviews.database;
+
+import edu.virginia.sde.reviews.Models.Course;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The ordered list of schema migrations. Never edit a migration once it has shipped;
+ * append a new one instead.
+ */
+public final class Migrations {
+
+    private static final Course[] PREBUILT_COURSES = {
+        new Course(0, "CS", 3140, "Software Development Essentials"),
+        new Course(0, "CS", 4501, "Advanced Software Development"),
+        new Course(0, "STS", 2600, "Engineering Ethics"),
+        new Course(0, "CHEM", 1410, "Introductory College Chemistry I"),
+        new Course(0, "MATH", 1310, "Calculus I"),
+        new Course(0, "ECON", 2010, "Principles of Microeconomics"),
+        new Course(0, "PHYS", 2010, "Principles of Physics 1")
+    };
+
+    public static final List<Migration> ALL = List.of(
+        new Migration(1, "Create users, courses and reviews tables", List.of(
+            """
+            CREATE TABLE IF NOT EXISTS users (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                username TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS courses (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                subject TEXT NOT NULL,
+                number INTEGER NOT NULL,
+                title TEXT NOT NULL,
+                UNIQUE(subject, number, title)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS reviews (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                user_id INTEGER NOT NULL,
+                course_id INTEGER NOT NULL,
+                rating INTEGER NOT NULL CHECK (rating >= 1 AND rating <= 5),
+                comment TEXT,
+                timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                FOREIGN KEY (user_id) REFERENCES users(id),
+                FOREIGN KEY (course_id) REFERENCES courses(id),
+                UNIQUE(user_id, course_id)
+            )
+            """
+        )),
+        new Migration(2, "Seed prebuilt course catalog", seedCourses(PREBUILT_COURSES)),
+        new Migration(3, "Case-insensitive course subjects and review lookup indexes", List.of(
+            // SQLite cannot change a column's collation in place, so the table is rebuilt
+            """
+            CREATE TABLE courses_new (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                subject TEXT NOT NULL COLLATE NOCASE,
+                number INTEGER NOT NULL,
+                title TEXT NOT NULL,
+                UNIQUE(subject, number, title)
+            )
+            """,
+            "INSERT INTO courses_new (id, subject, number, title) SELECT id, subject, number, title FROM courses",
+            "DROP TABLE courses",
+            "ALTER TABLE courses_new RENAME TO courses",
+            "CREATE INDEX idx_courses_number ON courses(number)",
+            "CREATE INDEX idx_reviews_course_timestamp ON reviews(course_id, timestamp)",
+            "CREATE INDEX idx_reviews_user_timestamp ON reviews(user_id, timestamp)"
+        )),
+        new Migration(4, "Per-course rating aggregates maintained by triggers", List.of(
+            """
+            CREATE TABLE course_rating_stats (
+                course_id INTEGER PRIMARY KEY REFERENCES courses(id),
+                review_count INTEGER NOT NULL DEFAULT 0,
+                rating_sum INTEGER NOT NULL DEFAULT 0,
+                stars_1 INTEGER NOT NULL DEFAULT 0,
+                stars_2 INTEGER NOT NULL DEFAULT 0,
+                stars_3 INTEGER NOT NULL DEFAULT 0,
+                stars_4 INTEGER NOT NULL DEFAULT 0,
+                stars_5 INTEGER NOT NULL DEFAULT 0
+            )
+            """,
+            """
+            INSERT INTO course_rating_stats
+                (course_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5)
+            SELECT course_id, COUNT(*), SUM(rating),
+                   SUM(rating = 1), SUM(rating = 2), SUM(rating = 3), SUM(rating = 4), SUM(rating = 5)
+            FROM reviews
+            GROUP BY course_id
+            """,
+            """
+            CREATE TRIGGER reviews_stats_insert AFTER INSERT ON reviews
+            BEGIN
+                INSERT OR IGNORE INTO course_rating_stats (course_id) VALUES (NEW.course_id);
+                UPDATE course_rating_stats SET
+                    review_count = review_count + 1,
+                    rating_sum = rating_sum + NEW.rating,
+                    stars_1 = stars_1 + (NEW.rating = 1),
+                    stars_2 = stars_2 + (NEW.rating = 2),
+                    stars_3 = stars_3 + (NEW.rating = 3),
+                    stars_4 = stars_4 + (NEW.rating = 4),
+                    stars_5 = stars_5 + (NEW.rating = 5)
+                WHERE course_id = NEW.course_id;
+            END
+            """,
+            """
+            CREATE TRIGGER reviews_stats_delete AFTER DELETE ON reviews
+            BEGIN
+                UPDATE course_rating_stats SET
+                    review_count = review_count - 1,
+                    rating_sum = rating_sum - OLD.rating,
+                    stars_1 = stars_1 - (OLD.rating = 1),
+                    stars_2 = stars_2 - (OLD.rating = 2),
+                    stars_3 = stars_3 - (OLD.rating = 3),
+                    stars_4 = stars_4 - (OLD.rating = 4),
+                    stars_5 = stars_5 - (OLD.rating = 5)
+                WHERE course_id = OLD.course_id;
+            END
+            """,
+            """
+            CREATE TRIGGER reviews_stats_update AFTER UPDATE OF rating, course_id ON reviews
+            BEGIN
+                UPDATE course_rating_stats SET
+                    review_count = review_count - 1,
+                    rating_sum = rating_sum - OLD.rating,
+                    stars_1 = stars_1 - (OLD.rating = 1),
+                    stars_2 = stars_2 - (OLD.rating = 2),
+                    stars_3 = stars_3 - (OLD.rating = 3),
+                    stars_4 = stars_4 - (OLD.rating = 4),
+                    stars_5 = stars_5 - (OLD.rating = 5)
+                WHERE course_id = OLD.course_id;
+                INSERT OR IGNORE INTO course_rating_stats (course_id) VALUES (NEW.course_id);
+                UPDATE course_rating_stats SET
+                    review_count = review_count + 1,
+                    rating_sum = rating_sum + NEW.rating,
+                    stars_1 = stars_1 + (NEW.rating = 1),
+                    stars_2 = stars_2 + (NEW.rating = 2),
+                    stars_3 = stars_3 + (NEW.rating = 3),
+                    stars_4 = stars_4 + (NEW.rating = 4),
+                    stars_5 = stars_5 + (NEW.rating = 5)
+                WHERE course_id = NEW.course_id;
+            END
+            """
+        )),
+        new Migration(5, "Full-text index over course subject, number and title", List.of(
+            """
+            CREATE VIRTUAL TABLE courses_fts USING fts5(
+                subject, number, title,
+                content='courses', content_rowid='id'
+            )
+            """,
+            "INSERT INTO courses_fts (courses_fts) VALUES ('rebuild')",
+            """
+            CREATE TRIGGER courses_fts_insert AFTER INSERT ON courses
+            BEGIN
+                INSERT INTO courses_fts (rowid, subject, number, title)
+                VALUES (NEW.id, NEW.subject, NEW.number, NEW.title);
+            END
+            """,
+            """
+            CREATE TRIGGER courses_fts_delete AFTER DELETE ON courses
+            BEGIN
+                INSERT INTO courses_fts (courses_fts, rowid, subject, number, title)
+                VALUES ('delete', OLD.id, OLD.subject, OLD.number, OLD.title);
+            END
+            """,
+            """
+            CREATE TRIGGER courses_fts_update AFTER UPDATE ON courses
+            BEGIN
+                INSERT INTO courses_fts (courses_fts, rowid, subject, number, title)
+                VALUES ('delete', OLD.id, OLD.subject, OLD.number, OLD.title);
+                INSERT INTO courses_fts (rowid, subject, number, title)
+                VALUES (NEW.id, NEW.subject, NEW.number, NEW.title);
+            END
+            """
+        )),
+        new Migration(6, "Bayesian course scores for top-rated leaderboards", List.of(
+            // Scores are pulled towards the catalog-wide mean as if every course had
+            // `weight` extra reviews at that mean, so a single 5-star review does not top the board
+            """
+            CREATE TABLE rating_prior (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                weight REAL NOT NULL,
+                mean REAL NOT NULL
+            )
+            """,
+            """
+            INSERT INTO rating_prior (id, weight, mean)
+            SELECT 1, 5.0, COALESCE(CAST(SUM(rating_sum) AS REAL) / NULLIF(SUM(review_count), 0), 3.0)
+            FROM course_rating_stats
+            """,
+            "ALTER TABLE course_rating_stats ADD COLUMN bayesian_score REAL",
+            """
+            UPDATE course_rating_stats SET bayesian_score =
+                (SELECT (p.weight * p.mean + rating_sum) / (p.weight + review_count) FROM rating_prior p)
+            """,
+            "CREATE INDEX idx_course_rating_stats_score ON course_rating_stats(bayesian_score DESC, course_id) WHERE review_count > 0",
+            // Fires after the review triggers adjust a course's counts; it only writes
+            // bayesian_score, so it does not trigger itself
+            """
+            CREATE TRIGGER course_rating_stats_score AFTER UPDATE OF review_count, rating_sum ON course_rating_stats
+            BEGIN
+                UPDATE course_rating_stats SET bayesian_score =
+                    (SELECT (p.weight * p.mean + NEW.rating_sum) / (p.weight + NEW.review_count) FROM rating_prior p)
+                WHERE course_id = NEW.course_id;
+            END
+            """,
+            """
+            CREATE TRIGGER rating_prior_rescore AFTER UPDATE ON rating_prior
+            BEGIN
+                UPDATE course_rating_stats SET bayesian_score =
+                    (NEW.weight * NEW.mean + rating_sum) / (NEW.weight + review_count);
+            END
+            """
+        ))
+    );
+
+    private Migrations() {
+    }
+
+    private static List<String> seedCourses(Course[] courses) {
+        List<String> statements = new ArrayList<>();
+        for (Course course : courses) {
+            // Locale.ROOT keeps the digits ASCII, so the SQL and its checksum are the same everywhere
+            statements.add(String.format(Locale.ROOT, "INSERT OR IGNORE INTO courses (subject, number, title) VALUES ('%s', %d, '%s')",
+                    quote(course.getSubject()), course.getNumber(), quote(course.getTitle())));
+        }
+        return statements;
+    }
+
+    private static String quote(String value) {
+        return value.replace("'", "''");
+    }
+}
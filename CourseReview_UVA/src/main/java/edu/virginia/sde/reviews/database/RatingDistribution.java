@@ -0,0 +1,43 @@
+package edu.virginia.sde.reviews.database;
+
+/**
+ * How many of a course's reviews gave each star rating, read from the counters that the
+ * review triggers keep in {@code course_rating_stats}.
+ */
+public record RatingDistribution(int oneStar, int twoStars, int threeStars, int fourStars, int fiveStars) {
+    public static final RatingDistribution EMPTY = new RatingDistribution(0, 0, 0, 0, 0);
+
+    /**
+     * Number of reviews with the given rating, from 1 to 5.
+     */
+    public int count(int stars) {
+        return switch (stars) {
+            case 1 -> oneStar;
+            case 2 -> twoStars;
+            case 3 -> threeStars;
+            case 4 -> fourStars;
+            case 5 -> fiveStars;
+            default -> throw new IllegalArgumentException("Rating must be between 1 and 5: " + stars);
+        };
+    }
+
+    public int total() {
+        return oneStar + twoStars + threeStars + fourStars + fiveStars;
+    }
+
+    /**
+     * Share of reviews with the given rating, from 0 to 1; 0 when there are no reviews.
+     */
+    public double fraction(int stars) {
+        int total = total();
+        return total == 0 ? 0 : (double) count(stars) / total;
+    }
+
+    /**
+     * Mean rating, or 0 when there are no reviews.
+     */
+    public double average() {
+        int total = total();
+        return total == 0 ? 0 : (oneStar + 2.0 * twoStars + 3.0 * threeStars + 4.0 * fourStars + 5.0 * fiveStars) / total;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Adapts an open result set to a lazy {@link Stream} that maps one row at a time, so
+ * callers can walk arbitrarily large results in constant memory. Closing the stream
+ * closes the given resources (result set, statement, connection lease) in order, so
+ * streams must be used in try-with-resources.
+ */
+final class ResultSetStream {
+    private static final Logger LOGGER = Logger.getLogger(ResultSetStream.class.getName());
+
+    private ResultSetStream() {
+    }
+
+    static <T> Stream<T> of(ResultSet resultSet, RowMapper<T> mapper, AutoCloseable... resources) {
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Failed to read streamed row", e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeAll(resources));
+    }
+
+    static void closeAll(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error closing streamed query", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package edu.virginia.sde.reviews.database;
+
+import edu.virginia.sde.reviews.Models.Review;
+
+import java.util.List;
+
+/**
+ * One page of reviews, newest first. {@code next} is the keyset cursor to pass back for
+ * the following page, or null when this is the last page.
+ */
+public record ReviewPage(List<Review> reviews, Cursor next) {
+
+    /**
+     * Position after the last review of a page, ordered by (timestamp, id) descending.
+     * The timestamp is kept as the raw stored text so it compares exactly in SQL.
+     */
+    public record Cursor(String timestamp, int id) {
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
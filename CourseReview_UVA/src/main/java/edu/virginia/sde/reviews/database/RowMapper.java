@@ -0,0 +1,13 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to a model object. Implementations read columns
+ * only and never move the cursor.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,111 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Brings a database up to the latest schema version. The applied version is kept in
+ * SQLite's {@code PRAGMA user_version}, so an up-to-date database costs a single pragma
+ * read. Each pending migration runs in its own transaction together with its
+ * bookkeeping row in {@code schema_migrations}.
+ */
+public class SchemaMigrator {
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).version() != i + 1) {
+                throw new IllegalArgumentException("Migrations must be numbered 1.." + migrations.size() + " in order");
+            }
+        }
+        this.migrations = List.copyOf(migrations);
+    }
+
+    public int latestVersion() {
+        return migrations.size();
+    }
+
+    public void migrate(Connection connection) throws SQLException {
+        int current = readUserVersion(connection);
+        if (current == latestVersion()) {
+            return;
+        }
+        if (current > latestVersion()) {
+            throw new SQLException("Database schema version " + current
+                    + " is newer than this application supports (" + latestVersion() + ")");
+        }
+
+        createHistoryTable(connection);
+        verifyChecksums(connection, current);
+        for (Migration migration : migrations.subList(current, migrations.size())) {
+            apply(connection, migration);
+        }
+    }
+
+    private static int readUserVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                CREATE TABLE IF NOT EXISTS schema_migrations (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    checksum INTEGER NOT NULL,
+                    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+    }
+
+    private void verifyChecksums(Connection connection, int appliedVersion) throws SQLException {
+        String query = "SELECT version, checksum FROM schema_migrations WHERE version <= ?";
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, appliedVersion);
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                Migration migration = migrations.get(resultSet.getInt("version") - 1);
+                if (migration.checksum() != resultSet.getLong("checksum")) {
+                    throw new SQLException("Migration " + migration.version()
+                            + " (" + migration.description() + ") was modified after it was applied");
+                }
+            }
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements()) {
+                statement.execute(sql);
+            }
+            try (PreparedStatement history = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+                history.setInt(1, migration.version());
+                history.setString(2, migration.description());
+                history.setLong(3, migration.checksum());
+                history.executeUpdate();
+            }
+            statement.execute("PRAGMA user_version = " + migration.version());
+            connection.commit();
+            LOGGER.info("Applied schema migration " + migration.version() + ": " + migration.description());
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
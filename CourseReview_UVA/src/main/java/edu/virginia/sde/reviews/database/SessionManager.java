@@ -1,4 +1,238 @@
 package edu.virginia.sde.reviews.database;
 
+import edu.virginia.sde.reviews.Models.User;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Registry of logged-in users keyed by opaque session tokens. Tokens are 256 random bits,
+ * so they cannot be guessed from a user id. A session expires after it has been idle for
+ * the configured timeout: lookups treat an idle session as gone straight away, and a
+ * background sweep removes idle sessions that are never looked up again. The registry
+ * is bounded, so once it is full a new login evicts the least recently used session.
+ */
 public class SessionManager {
+    private static final Logger LOGGER = Logger.getLogger(SessionManager.class.getName());
+    private static final Duration DEFAULT_IDLE_TIMEOUT =
+            Duration.ofMinutes(Long.getLong("reviews.session.idleMinutes", 30));
+    private static final int DEFAULT_MAX_SESSIONS = Integer.getInteger("reviews.session.maxSessions", 10_000);
+    private static final int TOKEN_BYTES = 32;
+
+    private static SessionManager instance;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long idleTimeoutNanos;
+    private final int maxSessions;
+    private final ScheduledExecutorService sweeper;
+    private final Object admission = new Object();
+
+    /**
+     * Creates the application-wide instance. Called once when the application starts.
+     */
+    public static synchronized SessionManager initialize() {
+        if (instance == null) {
+            instance = new SessionManager(DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_SESSIONS);
+        }
+        return instance;
+    }
+
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("SessionManager has not been initialized");
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    public SessionManager(Duration idleTimeout, int maxSessions) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("Session limit must be at least 1");
+        }
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxSessions = maxSessions;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, idleTimeout.toMillis() / 2);
+        sweeper.scheduleWithFixedDelay(this::evictExpired, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a user who has just logged in.
+     */
+    public Session create(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("Cannot create a session without a user");
+        }
+        Session session = new Session(newToken(), user);
+        // Logins are admitted one at a time, so the registry never grows past the limit
+        synchronized (admission) {
+            if (sessions.size() >= maxSessions) {
+                makeRoom();
+            }
+            sessions.put(session.token(), session);
+        }
+        return session;
+    }
+
+    /**
+     * Returns the live session for a token and marks it as used, or null if the token is
+     * unknown or the session has been idle for too long.
+     */
+    public Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (session.isExpired(now, idleTimeoutNanos)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Convenience for callers that only need the user behind a token.
+     */
+    public User findUser(String token) {
+        Session session = find(token);
+        return session == null ? null : session.user();
+    }
+
+    /**
+     * Ends a session, e.g. on logout. Returns false if it did not exist.
+     */
+    public boolean invalidate(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Removes every session that has been idle for longer than the timeout and returns
+     * how many were removed.
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Session session : sessions.values()) {
+            if (session.isExpired(now, idleTimeoutNanos) && sessions.remove(session.token(), session)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            LOGGER.fine("Evicted " + evicted + " idle sessions");
+        }
+        return evicted;
+    }
+
+    // One pass over a full registry: drop the idle sessions, and if none were idle, the
+    // least recently used one. Only called while holding the admission lock.
+    private void makeRoom() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        Session oldest = null;
+        long oldestAccessNanos = 0;
+        for (Session session : sessions.values()) {
+            long lastAccessNanos = session.lastAccessNanos;
+            if (now - lastAccessNanos > idleTimeoutNanos) {
+                if (sessions.remove(session.token(), session)) {
+                    evicted++;
+                }
+            } else if (oldest == null || lastAccessNanos - oldestAccessNanos < 0) {
+                oldest = session;
+                oldestAccessNanos = lastAccessNanos;
+            }
+        }
+        if (evicted == 0 && oldest != null) {
+            sessions.remove(oldest.token(), oldest);
+        } else if (evicted > 0) {
+            LOGGER.fine("Evicted " + evicted + " idle sessions");
+        }
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public void close() {
+        sweeper.shutdownNow();
+        sessions.clear();
+    }
+
+    /**
+     * One logged-in user. Attributes hold any per-session state callers want to keep
+     * alongside the user.
+     */
+    public static final class Session {
+        private final String token;
+        private final User user;
+        private final Instant createdAt = Instant.now();
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Session(String token, User user) {
+            this.token = token;
+            this.user = user;
+        }
+
+        public String token() {
+            return token;
+        }
+
+        public User user() {
+            return user;
+        }
+
+        public Instant createdAt() {
+            return createdAt;
+        }
+
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        public void setAttribute(String name, Object value) {
+            if (value == null) {
+                attributes.remove(name);
+            } else {
+                attributes.put(name, value);
+            }
+        }
+
+        private void touch(long now) {
+            lastAccessNanos = now;
+        }
+
+        private boolean isExpired(long now, long idleTimeoutNanos) {
+            return now - lastAccessNanos > idleTimeoutNanos;
+        }
+    }
 }
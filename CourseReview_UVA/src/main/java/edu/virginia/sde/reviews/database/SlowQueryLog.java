@@ -0,0 +1,118 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs queries that take longer than a threshold, together with their bound parameters
+ * and SQLite's {@code EXPLAIN QUERY PLAN} output, so a slow variant of a dynamically
+ * built query (such as one of the searchCourses filter combinations) can be identified
+ * from the log alone. At most a fixed number of entries are written per minute; the
+ * rest are counted and reported with the next entry.
+ *
+ * <p>The threshold comes from the reviews.db.slowQueryMillis property (100 ms by
+ * default; a negative value turns the log off) and the rate limit from
+ * reviews.db.slowQueryLogsPerMinute (10 by default).
+ */
+public class SlowQueryLog {
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+    private static final Duration DEFAULT_THRESHOLD =
+            Duration.ofMillis(Long.getLong("reviews.db.slowQueryMillis", 100));
+    private static final int DEFAULT_LOGS_PER_MINUTE = Integer.getInteger("reviews.db.slowQueryLogsPerMinute", 10);
+    private static final long WINDOW_NANOS = Duration.ofMinutes(1).toNanos();
+
+    /**
+     * Wraps a parameter that must never be written to the log, such as a password.
+     * {@link DatabaseManager} unwraps it when binding.
+     */
+    record Redacted(Object value) {
+        @Override
+        public String toString() {
+            return "<redacted>";
+        }
+    }
+
+    private final long thresholdNanos;
+    private final int maxLogsPerWindow;
+    private long windowStart = System.nanoTime();
+    private int loggedInWindow = 0;
+    private int suppressed = 0;
+
+    public SlowQueryLog() {
+        this(DEFAULT_THRESHOLD, DEFAULT_LOGS_PER_MINUTE);
+    }
+
+    public SlowQueryLog(Duration threshold, int maxLogsPerMinute) {
+        this.thresholdNanos = threshold.isNegative() ? Long.MAX_VALUE : threshold.toNanos();
+        this.maxLogsPerWindow = maxLogsPerMinute;
+    }
+
+    /**
+     * Logs the query if it has run for longer than the threshold since {@code startNanos}.
+     * Must be called while the caller still holds the connection the query ran on, after
+     * its result set has been consumed and closed.
+     */
+    public void record(Connection connection, String query, Object[] params, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos < thresholdNanos) {
+            return;
+        }
+        int skipped;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - windowStart >= WINDOW_NANOS) {
+                windowStart = now;
+                loggedInWindow = 0;
+            }
+            if (loggedInWindow >= maxLogsPerWindow) {
+                suppressed++;
+                return;
+            }
+            loggedInWindow++;
+            skipped = suppressed;
+            suppressed = 0;
+        }
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format(Locale.ROOT, "Slow query (%.1f ms): %s", elapsedNanos / 1_000_000.0, query));
+        entry.append(System.lineSeparator()).append("  params: ").append(Arrays.toString(params));
+        entry.append(System.lineSeparator()).append("  plan:");
+        try {
+            appendPlan(entry, connection, query, params);
+        } catch (SQLException e) {
+            entry.append(" unavailable (").append(e.getMessage()).append(')');
+        }
+        if (skipped > 0) {
+            entry.append(System.lineSeparator())
+                 .append("  ").append(skipped).append(" more slow queries were not logged");
+        }
+        LOGGER.log(Level.WARNING, entry.toString());
+    }
+
+    // Rows are (id, parent, notused, detail); children are indented under their parent
+    private static void appendPlan(StringBuilder entry, Connection connection, String query, Object[] params)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + query)) {
+            DatabaseManager.bind(statement, params);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Map<Integer, Integer> depths = new HashMap<>();
+                while (resultSet.next()) {
+                    int depth = depths.getOrDefault(resultSet.getInt("parent"), -1) + 1;
+                    depths.put(resultSet.getInt("id"), depth);
+                    entry.append(System.lineSeparator())
+                         .append("    ").append("  ".repeat(depth))
+                         .append(resultSet.getString("detail"));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package edu.virginia.sde.reviews.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single-writer pipeline with group commit. Writes are queued and applied by one
+ * dedicated thread, which drains whatever has queued up (up to a limit) and commits it
+ * as one transaction, so a burst of writes shares a single fsync. Each write runs inside
+ * its own savepoint: a write that fails is rolled back on its own and only its future
+ * fails. If the database is busy (another process holds the lock) the whole group is
+ * rolled back and retried with exponential backoff. Futures complete only after the
+ * group has committed.
+ */
+public class WriteQueue implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(WriteQueue.class.getName());
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = 20;
+    private static final long POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    // Primary SQLite result codes for a locked database
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    /**
+     * One write, run on the writer connection inside the group's transaction.
+     */
+    @FunctionalInterface
+    public interface WriteTask<T> {
+        T execute(ConnectionPool.Lease lease) throws SQLException;
+    }
+
+    private final ConnectionPool pool;
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final int maxGroupSize;
+    private final Thread writerThread;
+    private volatile boolean closed = false;
+
+    public WriteQueue(ConnectionPool pool, int capacity, int maxGroupSize) {
+        this.pool = pool;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxGroupSize = maxGroupSize;
+        this.writerThread = new Thread(this::run, "db-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a write. Fails fast with a {@link RejectedExecutionException} instead of
+     * blocking the caller when the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(WriteTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IllegalStateException("Write queue is closed"));
+        } else if (!queue.offer(new PendingWrite<>(task, future))) {
+            future.completeExceptionally(new RejectedExecutionException("Write queue is full"));
+        }
+        return future;
+    }
+
+    private void run() {
+        List<PendingWrite<?>> group = new ArrayList<>(maxGroupSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite<?> first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                // close() interrupts only after the queue has had time to drain
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+        PendingWrite<?> abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            abandoned.future.completeExceptionally(new IllegalStateException("Write queue is closed"));
+        }
+    }
+
+    private void commitGroup(List<PendingWrite<?>> group) throws InterruptedException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                applyGroup(group);
+                for (PendingWrite<?> write : group) {
+                    write.complete();
+                }
+                return;
+            } catch (SQLException e) {
+                if (!isBusy(e) || attempt == MAX_ATTEMPTS) {
+                    LOGGER.log(Level.SEVERE, "Error committing queued writes", e);
+                    for (PendingWrite<?> write : group) {
+                        write.future.completeExceptionally(e);
+                    }
+                    return;
+                }
+                LOGGER.log(Level.WARNING, "Database busy, retrying " + group.size() + " queued writes (attempt " + attempt + ")");
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * Runs every write of the group in one transaction. Per-write failures are recorded
+     * on the write; a busy database or a failed commit throws so the group can be retried.
+     */
+    private void applyGroup(List<PendingWrite<?>> group) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.writer()) {
+            Connection connection = lease.connection();
+            connection.setAutoCommit(false);
+            try {
+                for (PendingWrite<?> write : group) {
+                    write.reset();
+                    lease.prepare("SAVEPOINT write_task").execute();
+                    try {
+                        write.execute(lease);
+                        lease.prepare("RELEASE write_task").execute();
+                    } catch (SQLException e) {
+                        if (isBusy(e)) {
+                            throw e;
+                        }
+                        rollbackTask(lease);
+                        write.failure = e;
+                    } catch (RuntimeException e) {
+                        rollbackTask(lease);
+                        write.failure = e;
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static void rollbackTask(ConnectionPool.Lease lease) throws SQLException {
+        lease.prepare("ROLLBACK TO write_task").execute();
+        lease.prepare("RELEASE write_task").execute();
+    }
+
+    static boolean isBusy(SQLException e) {
+        int code = e.getErrorCode() & 0xff;
+        return code == SQLITE_BUSY || code == SQLITE_LOCKED;
+    }
+
+    /**
+     * Stops accepting writes, lets the writer thread finish what is already queued and
+     * fails anything still left after the timeout.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MILLIS);
+            if (writerThread.isAlive()) {
+                writerThread.interrupt();
+                writerThread.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class PendingWrite<T> {
+        private final WriteTask<T> task;
+        private final CompletableFuture<T> future;
+        private T result;
+        private Exception failure;
+
+        PendingWrite(WriteTask<T> task, CompletableFuture<T> future) {
+            this.task = task;
+            this.future = future;
+        }
+
+        void reset() {
+            result = null;
+            failure = null;
+        }
+
+        void execute(ConnectionPool.Lease lease) throws SQLException {
+            result = task.execute(lease);
+        }
+
+        void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package edu.virginia.sde.reviews.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application-wide registry of {@link OperationMetrics}. Each operation is registered as
+ * a JMX MBean named {@code edu.virginia.sde.reviews:type=Operation,name=<operation>} the
+ * first time it is looked up, so it shows up in JConsole or VisualVM. Callers keep the
+ * returned instance in a static field rather than looking it up on every call.
+ */
+public final class Metrics {
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+    private static final String DOMAIN = "edu.virginia.sde.reviews";
+    private static final Duration DEFAULT_LOG_INTERVAL =
+            Duration.ofSeconds(Long.getLong("reviews.metrics.logSeconds", 60));
+
+    private static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentSkipListMap<>();
+    private static final Map<String, Long> LOGGED_COUNTS = new HashMap<>();
+    private static ScheduledExecutorService summaryLogger;
+
+    private Metrics() {
+    }
+
+    public static OperationMetrics operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, Metrics::register);
+    }
+
+    public static Collection<OperationMetrics> operations() {
+        return OPERATIONS.values();
+    }
+
+    private static OperationMetrics register(String name) {
+        OperationMetrics metrics = new OperationMetrics(name);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=Operation,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException e) {
+            // Metrics are still collected and logged without JMX
+            LOGGER.log(Level.WARNING, "Error registering metrics MBean for " + name, e);
+        }
+        return metrics;
+    }
+
+    /**
+     * Starts logging a summary of every operation that ran since the previous summary,
+     * at the interval given by the reviews.metrics.logSeconds property (60 s by default).
+     */
+    public static synchronized void startPeriodicLog() {
+        if (summaryLogger != null || DEFAULT_LOG_INTERVAL.isZero()) {
+            return;
+        }
+        summaryLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = DEFAULT_LOG_INTERVAL.toMillis();
+        summaryLogger.scheduleAtFixedRate(Metrics::logSummary, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized void shutdown() {
+        if (summaryLogger != null) {
+            summaryLogger.shutdownNow();
+            summaryLogger = null;
+            logSummary();
+        }
+    }
+
+    private static synchronized void logSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (OperationMetrics metrics : OPERATIONS.values()) {
+            long count = metrics.getCount();
+            Long logged = LOGGED_COUNTS.put(metrics.name(), count);
+            if (count == 0 || (logged != null && logged == count)) {
+                continue;
+            }
+            summary.append(String.format(Locale.ROOT,
+                    "%n  %-32s count=%d errors=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                    metrics.name(), count, metrics.getErrors(), metrics.getMeanMillis(), metrics.getP50Millis(),
+                    metrics.getP95Millis(), metrics.getP99Millis(), metrics.getMaxMillis()));
+        }
+        if (summary.length() > 0) {
+            LOGGER.info("Operation latencies:" + summary);
+        }
+    }
+}
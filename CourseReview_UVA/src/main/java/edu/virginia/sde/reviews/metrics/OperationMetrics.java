@@ -0,0 +1,96 @@
+package edu.virginia.sde.reviews.metrics;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Call count, error count and latency histogram for one operation, such as a
+ * DatabaseManager query or a controller action. Callers take a start time with
+ * {@link System#nanoTime()} and hand it to {@link #recordSince(long)} when the
+ * operation finishes (typically in a finally block), plus {@link #recordError()} when
+ * it fails. Neither call allocates.
+ */
+public final class OperationMetrics implements OperationMetricsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void recordSince(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * Records the outcome of an asynchronous operation started at {@code startNanos}, for
+     * use as a {@code whenComplete} callback. Requests cancelled because a newer one
+     * superseded them are not counted at all.
+     */
+    public void recordCompletion(long startNanos, Throwable failure) {
+        if (failure != null && (failure instanceof CancellationException
+                || failure.getCause() instanceof CancellationException)) {
+            return;
+        }
+        recordSince(startNanos);
+        if (failure != null) {
+            recordError();
+        }
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.count();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.mean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.percentile(95) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.max() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.set(0);
+    }
+}
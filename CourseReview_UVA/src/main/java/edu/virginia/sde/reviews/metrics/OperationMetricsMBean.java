@@ -0,0 +1,22 @@
+package edu.virginia.sde.reviews.metrics;
+
+/**
+ * JMX view of one instrumented operation. Latencies are in milliseconds.
+ */
+public interface OperationMetricsMBean {
+    long getCount();
+
+    long getErrors();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
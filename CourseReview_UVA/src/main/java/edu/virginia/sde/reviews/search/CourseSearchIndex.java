@@ -0,0 +1,305 @@
+package edu.virginia.sde.reviews.search;
+
+import edu.virginia.sde.reviews.Models.Course;
+import edu.virginia.sde.reviews.viewmodels.CourseRow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index over the whole course catalog for search-as-you-type. Subjects and
+ * numbers are kept in prefix tries, so "C" matches every CS and CHEM course and "21"
+ * matches 2100 to 2199; titles are kept in a sorted token index, and every word typed
+ * must prefix-match a word of the title, as the database's full-text search does.
+ * Each filter yields a sorted list of row positions and the lists are intersected,
+ * smallest first.
+ *
+ * <p>The index is built off the JavaFX application thread and rebuilt when courses are
+ * added. Ratings only affect the rows handed back, so they are updated in place. Results
+ * of recent queries are cached, so the index is not thread-safe and, once built, belongs
+ * to one thread.
+ */
+public class CourseSearchIndex {
+    private static final int CACHE_SIZE = 128;
+    private static final int FUZZY_LIMIT = 50;
+    private static final int[] NONE = new int[0];
+    // Anything that is not a letter or digit separates words, like SQLite's unicode61 tokenizer
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final CourseRow[] rows;
+    private final int[] all;
+    private final PrefixTrie subjects = new PrefixTrie();
+    private final PrefixTrie numbers = new PrefixTrie();
+    private final NavigableMap<String, int[]> titleTokens;
+    private final TrigramIndex fuzzy;
+    // Scratch space for merging title postings, reused across lookups
+    private final int[] seen;
+    private final IntList union = new IntList();
+    private int stamp;
+    private final Map<String, List<CourseRow>> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<CourseRow>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public CourseSearchIndex(List<CourseRow> courses) {
+        rows = courses.toArray(new CourseRow[0]);
+        Arrays.sort(rows, Comparator.comparingInt(row -> row.course().getId()));
+        all = new int[rows.length];
+        seen = new int[rows.length];
+
+        Map<String, IntList> tokens = new HashMap<>();
+        for (int position = 0; position < rows.length; position++) {
+            CourseRow row = rows[position];
+            all[position] = position;
+            subjects.add(row.subject().toLowerCase(Locale.ROOT), position);
+            numbers.add(Integer.toString(row.number()), position);
+            for (String token : tokenize(row.title())) {
+                tokens.computeIfAbsent(token, t -> new IntList()).addOnce(position);
+            }
+        }
+        titleTokens = new TreeMap<>();
+        tokens.forEach((token, positions) -> titleTokens.put(token, positions.toArray()));
+        subjects.freeze();
+        numbers.freeze();
+
+        List<String> texts = new ArrayList<>(rows.length);
+        for (CourseRow row : rows) {
+            texts.add(row.subject() + " " + row.title());
+        }
+        fuzzy = new TrigramIndex(texts);
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Sets each course's rating to the one given for its id, or to unrated if there is
+     * none, and returns whether any rating changed. Cached results are dropped if one did.
+     */
+    public boolean updateRatings(Map<Integer, Double> ratings) {
+        boolean changed = false;
+        for (int position = 0; position < rows.length; position++) {
+            Course course = rows[position].course();
+            double rating = ratings.getOrDefault(course.getId(), 0.0);
+            if (rating != course.getAverageRating()) {
+                Course updated = new Course(course.getId(), course.getSubject(), course.getNumber(), course.getTitle());
+                updated.setAverageRating(rating);
+                rows[position] = CourseRow.of(updated);
+                changed = true;
+            }
+        }
+        if (changed) {
+            cache.clear();
+        }
+        return changed;
+    }
+
+    /**
+     * Courses matching every non-blank filter, ordered by id. {@code number} is matched as
+     * a prefix of the course number, so anything but digits matches nothing.
+     */
+    public List<CourseRow> search(String subject, String number, String title) {
+        String subjectKey = normalize(subject);
+        String numberKey = normalize(number);
+        String titleKey = normalize(title);
+        String key = subjectKey + '\u0000' + numberKey + '\u0000' + titleKey;
+        List<CourseRow> cached = cache.get(key);
+        if (cached == null) {
+            cached = Collections.unmodifiableList(find(subjectKey, numberKey, titleKey));
+            cache.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Courses whose subject and title best resemble {@code subject} and {@code text} taken
+     * together, tolerating misspellings, most similar first. {@code number} is still an
+     * exact prefix filter. At most {@value #FUZZY_LIMIT} courses are returned, and with
+     * nothing to match against the result is the same as {@link #search}.
+     */
+    public List<CourseRow> fuzzySearch(String subject, String number, String text) {
+        String subjectKey = normalize(subject);
+        String numberKey = normalize(number);
+        String textKey = normalize(text);
+        if (subjectKey.isEmpty() && textKey.isEmpty()) {
+            return search(subject, number, text);
+        }
+        String key = "~" + subjectKey + '\u0000' + numberKey + '\u0000' + textKey;
+        List<CourseRow> cached = cache.get(key);
+        if (cached == null) {
+            cached = Collections.unmodifiableList(findFuzzy(subjectKey, numberKey, textKey));
+            cache.put(key, cached);
+        }
+        return cached;
+    }
+
+    private List<CourseRow> findFuzzy(String subject, String number, String text) {
+        int[] allowed = all;
+        if (!number.isEmpty()) {
+            allowed = number.chars().allMatch(Character::isDigit) ? numbers.find(number) : NONE;
+        }
+        if (allowed.length == 0) {
+            return List.of();
+        }
+        int[] candidates = allowed;
+        List<TrigramIndex.Match> matches = fuzzy.search(subject + " " + text, FUZZY_LIMIT,
+                TrigramIndex.DEFAULT_MIN_SIMILARITY,
+                candidates == all ? position -> true : position -> Arrays.binarySearch(candidates, position) >= 0);
+        List<CourseRow> results = new ArrayList<>(matches.size());
+        for (TrigramIndex.Match match : matches) {
+            results.add(rows[match.position()]);
+        }
+        return results;
+    }
+
+    private List<CourseRow> find(String subject, String number, String title) {
+        List<int[]> filters = new ArrayList<>();
+        if (!subject.isEmpty()) {
+            filters.add(subjects.find(subject));
+        }
+        if (!number.isEmpty()) {
+            filters.add(number.chars().allMatch(Character::isDigit) ? numbers.find(number) : NONE);
+        }
+        for (String word : tokenize(title)) {
+            filters.add(titleMatches(word));
+        }
+
+        int[] positions = all;
+        if (!filters.isEmpty()) {
+            filters.sort(Comparator.comparingInt(filter -> filter.length));
+            positions = filters.get(0);
+            for (int i = 1; i < filters.size() && positions.length > 0; i++) {
+                positions = intersect(positions, filters.get(i));
+            }
+        }
+        List<CourseRow> results = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            results.add(rows[position]);
+        }
+        return results;
+    }
+
+    // Union of the postings of every title token starting with the word
+    private int[] titleMatches(String word) {
+        NavigableMap<String, int[]> matches = titleTokens.subMap(word, true, word + Character.MAX_VALUE, false);
+        if (matches.isEmpty()) {
+            return NONE;
+        }
+        if (matches.size() == 1) {
+            return matches.firstEntry().getValue();
+        }
+        int stamp = nextStamp();
+        union.clear();
+        for (int[] postings : matches.values()) {
+            for (int position : postings) {
+                if (seen[position] != stamp) {
+                    seen[position] = stamp;
+                    union.add(position);
+                }
+            }
+        }
+        int[] positions = union.toArray();
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    // A slot of seen belongs to the current lookup only if it holds the current stamp, so
+    // the array never has to be cleared; it is reset once if the stamp wraps around
+    private int nextStamp() {
+        if (++stamp == 0) {
+            Arrays.fill(seen, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : WORD_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Character trie where every node holds the sorted positions of all keys below it, so
+     * a prefix lookup is one walk down the trie with no merging.
+     */
+    private static final class PrefixTrie {
+        private final Node root = new Node();
+
+        private static final class Node {
+            final Map<Character, Node> children = new HashMap<>(4);
+            IntList building = new IntList();
+            int[] positions = NONE;
+        }
+
+        void add(String key, int position) {
+            Node node = root;
+            node.building.addOnce(position);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                node.building.addOnce(position);
+            }
+        }
+
+        int[] find(String prefix) {
+            Node node = root;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node == null ? NONE : node.positions;
+        }
+
+        // Positions are added in increasing order, so each list is already sorted
+        void freeze() {
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                node.positions = node.building.toArray();
+                node.building = null;
+                pending.addAll(node.children.values());
+            }
+        }
+    }
+}
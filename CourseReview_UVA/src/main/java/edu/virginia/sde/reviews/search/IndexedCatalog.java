@@ -0,0 +1,20 @@
+package edu.virginia.sde.reviews.search;
+
+import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.viewmodels.CourseRow;
+
+/**
+ * A search index over the whole catalog, together with the database's ratings version
+ * from just before its ratings were read, so whoever holds it can tell when the ratings
+ * may have gone stale.
+ */
+public record IndexedCatalog(CourseSearchIndex index, long ratingsVersion) {
+    /**
+     * Reads every course with its rating and indexes them. This takes a while on a large
+     * catalog, so call it off the JavaFX application thread.
+     */
+    public static IndexedCatalog load(DatabaseManager database) {
+        long ratingsVersion = database.ratingsVersion();
+        return new IndexedCatalog(new CourseSearchIndex(CourseRow.of(database.getRatedCatalog())), ratingsVersion);
+    }
+}
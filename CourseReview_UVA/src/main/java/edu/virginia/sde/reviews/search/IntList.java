@@ -0,0 +1,37 @@
+package edu.virginia.sde.reviews.search;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array used while building posting lists. {@link #addOnce} skips a value
+ * equal to the last one added, which deduplicates positions that arrive in order.
+ */
+final class IntList {
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    void addOnce(int value) {
+        if (size == 0 || values[size - 1] != value) {
+            add(value);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
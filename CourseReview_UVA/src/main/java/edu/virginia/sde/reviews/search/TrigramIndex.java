@@ -0,0 +1,135 @@
+package edu.virginia.sde.reviews.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Typo-tolerant matching of short texts (course subject plus title) by shared character
+ * trigrams. Each word is padded the way PostgreSQL's pg_trgm does it, two spaces before
+ * and one after, so "Calclus" still shares six of its eight trigrams with "Calculus".
+ *
+ * <p>A query only reads the posting lists of its own trigrams, counting for each text
+ * how many of them it contains, so its cost is bounded by the number of trigrams typed
+ * rather than the number of texts. Texts are scored by the fraction of the query's
+ * trigrams they contain, ties going to the shorter text, and the best are kept in a
+ * fixed-size heap.
+ *
+ * <p>Queries share scratch arrays, so an index must only be queried from one thread.
+ */
+public class TrigramIndex {
+    /**
+     * Share of the query's trigrams a text must contain to be returned at all.
+     */
+    public static final double DEFAULT_MIN_SIMILARITY = 0.5;
+
+    /**
+     * A matching text: its position in the indexed list and its similarity to the query.
+     */
+    public record Match(int position, double similarity) {
+    }
+
+    private final Map<String, int[]> postings;
+    private final int[] trigramCounts;
+    // Per-query scratch space, reused so a query only touches the slots of its candidates
+    private final int[] shared;
+    private final int[] candidates;
+
+    public TrigramIndex(List<String> texts) {
+        Map<String, IntList> building = new HashMap<>();
+        trigramCounts = new int[texts.size()];
+        for (int position = 0; position < texts.size(); position++) {
+            Set<String> trigrams = trigrams(texts.get(position));
+            trigramCounts[position] = trigrams.size();
+            for (String trigram : trigrams) {
+                building.computeIfAbsent(trigram, t -> new IntList()).add(position);
+            }
+        }
+        postings = new HashMap<>(building.size() * 2);
+        building.forEach((trigram, positions) -> postings.put(trigram, positions.toArray()));
+        shared = new int[texts.size()];
+        candidates = new int[texts.size()];
+    }
+
+    /**
+     * The {@code limit} texts most similar to the query among those {@code allowed},
+     * best first.
+     */
+    public List<Match> search(String query, int limit, double minSimilarity, IntPredicate allowed) {
+        Set<String> queryTrigrams = trigrams(query);
+        if (queryTrigrams.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int candidateCount = 0;
+        try {
+            for (String trigram : queryTrigrams) {
+                int[] positions = postings.get(trigram);
+                if (positions == null) {
+                    continue;
+                }
+                for (int position : positions) {
+                    if (shared[position]++ == 0) {
+                        candidates[candidateCount++] = position;
+                    }
+                }
+            }
+            return best(candidateCount, queryTrigrams.size(), limit, minSimilarity, allowed);
+        } finally {
+            for (int i = 0; i < candidateCount; i++) {
+                shared[candidates[i]] = 0;
+            }
+        }
+    }
+
+    private List<Match> best(int candidateCount, int queryTrigrams, int limit, double minSimilarity,
+                             IntPredicate allowed) {
+        // Min-heap on score, so the weakest of the current best is the one evicted
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, TrigramIndex::compareMatches);
+        int minShared = (int) Math.ceil(minSimilarity * queryTrigrams);
+        for (int i = 0; i < candidateCount; i++) {
+            int position = candidates[i];
+            if (shared[position] < minShared || !allowed.test(position)) {
+                continue;
+            }
+            Match match = new Match(position, score(shared[position], queryTrigrams, trigramCounts[position]));
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (compareMatches(match, best.peek()) > 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        List<Match> results = new ArrayList<>(best);
+        results.sort((a, b) -> compareMatches(b, a));
+        return results;
+    }
+
+    // Fraction of the query found in the text, plus a sub-unit tie-break on text length
+    private static double score(int shared, int queryTrigrams, int textTrigrams) {
+        double containment = (double) shared / queryTrigrams;
+        double jaccard = (double) shared / (queryTrigrams + textTrigrams - shared);
+        return containment + jaccard / (queryTrigrams + 1);
+    }
+
+    private static int compareMatches(Match a, Match b) {
+        int bySimilarity = Double.compare(a.similarity(), b.similarity());
+        // Among equal scores, prefer the earlier (lower id) course
+        return bySimilarity != 0 ? bySimilarity : Integer.compare(b.position(), a.position());
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String word : CourseSearchIndex.tokenize(text)) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,18 @@
+package edu.virginia.sde.reviews.server;
+
+/**
+ * A request that cannot be served, carrying the HTTP status to answer with. The message
+ * is sent to the client, so it must not contain internal details.
+ */
+public class ApiException extends RuntimeException {
+    private final int status;
+
+    public ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int status() {
+        return status;
+    }
+}
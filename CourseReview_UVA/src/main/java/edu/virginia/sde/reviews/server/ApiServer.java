@@ -0,0 +1,418 @@
+package edu.virginia.sde.reviews.server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.virginia.sde.reviews.Models.Course;
+import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.database.DatabaseManager;
+import edu.virginia.sde.reviews.database.ReviewPage;
+import edu.virginia.sde.reviews.database.SessionManager;
+import edu.virginia.sde.reviews.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless JSON API over the same {@link DatabaseManager} the desktop app uses, so one
+ * process can serve many clients. Clients log in once and send the returned token as
+ * {@code Authorization: Bearer <token>}; each request acts as the user behind its own
+ * token rather than a process-wide current user.
+ *
+ * <pre>
+ * POST   /api/login                  {"username", "password"} -> {"token", "username"}
+ * POST   /api/logout
+ * GET    /api/courses?subject=&amp;number=&amp;title=
+ * GET    /api/courses/search?q=&amp;limit=
+ * GET    /api/courses/{id}
+ * GET    /api/courses/{id}/reviews?after=&amp;limit=
+ * POST   /api/courses/{id}/reviews   {"rating", "comment"}
+ * PUT    /api/reviews/{id}           {"rating", "comment"}
+ * DELETE /api/reviews/{id}
+ * GET    /api/me/reviews?after=&amp;limit=
+ * </pre>
+ *
+ * Review lists are paged newest first; pass a page's {@code next} value as {@code after}
+ * to fetch the following page.
+ */
+public class ApiServer {
+    private static final Logger LOGGER = Logger.getLogger(ApiServer.class.getName());
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_THREADS = 64;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int STOP_DELAY_SECONDS = 2;
+
+    private final DatabaseManager database;
+    private final SessionManager sessions;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(Timestamp.class, (JsonSerializer<Timestamp>) (timestamp, type, context) ->
+                    // Review timestamps are stored as UTC by CURRENT_TIMESTAMP
+                    new JsonPrimitive(timestamp.toLocalDateTime().atOffset(ZoneOffset.UTC).toString()))
+            .create();
+
+    public ApiServer(DatabaseManager database, SessionManager sessions, int port, int threads) throws IOException {
+        this.database = database;
+        this.sessions = sessions;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "api-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/login", exchange -> handle(exchange, this::login));
+        server.createContext("/api/logout", exchange -> handle(exchange, this::logout));
+        server.createContext("/api/courses", exchange -> handle(exchange, this::courses));
+        server.createContext("/api/reviews", exchange -> handle(exchange, this::reviews));
+        server.createContext("/api/me/reviews", exchange -> handle(exchange, this::myReviews));
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("API server listening on port " + server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        Object serve(HttpExchange exchange) throws IOException;
+    }
+
+    private record Credentials(String username, String password) {
+    }
+
+    private record LoginResponse(String token, String username) {
+    }
+
+    private record ReviewRequest(Integer rating, String comment) {
+    }
+
+    private record ReviewPageResponse(List<?> reviews, String next) {
+    }
+
+    private record Result(boolean success) {
+    }
+
+    private record ErrorResponse(String error) {
+    }
+
+    /**
+     * Runs a route and writes its result as JSON with 200, or 204 when it returns null.
+     */
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        try (exchange) {
+            try {
+                Object body = route.serve(exchange);
+                if (body == null) {
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    send(exchange, 200, body);
+                }
+            } catch (ApiException e) {
+                send(exchange, e.status(), new ErrorResponse(e.getMessage()));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Error serving " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(), e);
+                send(exchange, 500, new ErrorResponse("Internal server error"));
+            }
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private Object login(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        Credentials credentials = readBody(exchange, Credentials.class);
+        if (credentials.username() == null || credentials.password() == null) {
+            throw new ApiException(400, "username and password are required");
+        }
+        User user = database.getUser(credentials.username(), credentials.password());
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        return new LoginResponse(sessions.create(user).token(), user.getUsername());
+    }
+
+    private Object logout(HttpExchange exchange) {
+        requireMethod(exchange, "POST");
+        sessions.invalidate(bearerToken(exchange));
+        return null;
+    }
+
+    // /api/courses, /api/courses/search, /api/courses/top, /api/courses/{id} and /api/courses/{id}/reviews
+    private Object courses(HttpExchange exchange) throws IOException {
+        String[] path = pathSegments(exchange, "/api/courses");
+        if (path.length == 0) {
+            requireMethod(exchange, "GET");
+            Map<String, String> query = queryParameters(exchange);
+            String number = query.get("number");
+            return database.searchCourses(blankToNull(query.get("subject")),
+                    number == null || number.isBlank() ? null : parseInt(number, "number"),
+                    blankToNull(query.get("title")));
+        }
+        if (path.length == 1 && path[0].equals("search")) {
+            requireMethod(exchange, "GET");
+            Map<String, String> query = queryParameters(exchange);
+            String text = blankToNull(query.get("q"));
+            if (text == null) {
+                throw new ApiException(400, "q is required");
+            }
+            return database.searchCoursesByText(text, pageSize(query));
+        }
+        if (path.length == 1 && path[0].equals("top")) {
+            requireMethod(exchange, "GET");
+            Map<String, String> query = queryParameters(exchange);
+            return database.getTopRatedCourses(blankToNull(query.get("subject")), pageSize(query));
+        }
+        int courseId = parseInt(path[0], "course id");
+        if (path.length == 1) {
+            requireMethod(exchange, "GET");
+            Course course = database.getCourseById(courseId);
+            if (course == null) {
+                throw new ApiException(404, "Course not found");
+            }
+            return course;
+        }
+        if (path.length == 2 && path[1].equals("reviews")) {
+            if (exchange.getRequestMethod().equals("POST")) {
+                User user = requireUser(exchange);
+                ReviewRequest review = readReview(exchange);
+                if (database.getCourseById(courseId) == null) {
+                    throw new ApiException(404, "Course not found");
+                }
+                if (database.getUserReviewForCourse(user, courseId) != null) {
+                    throw new ApiException(409, "You have already reviewed this course");
+                }
+                if (!database.addReview(user, courseId, review.rating(), review.comment())) {
+                    // Either a duplicate submitted concurrently, or the write was rejected or failed
+                    if (database.getUserReviewForCourse(user, courseId) != null) {
+                        throw new ApiException(409, "You have already reviewed this course");
+                    }
+                    throw new ApiException(503, "Could not save the review, please try again");
+                }
+                return new Result(true);
+            }
+            requireMethod(exchange, "GET");
+            Map<String, String> query = queryParameters(exchange);
+            return toResponse(database.getCourseReviewsPage(courseId, decodeCursor(query.get("after")), pageSize(query)));
+        }
+        throw new ApiException(404, "Not found");
+    }
+
+    // /api/reviews/{id}
+    private Object reviews(HttpExchange exchange) throws IOException {
+        String[] path = pathSegments(exchange, "/api/reviews");
+        if (path.length != 1) {
+            throw new ApiException(404, "Not found");
+        }
+        int reviewId = parseInt(path[0], "review id");
+        User user = requireUser(exchange);
+        switch (exchange.getRequestMethod()) {
+            case "PUT" -> {
+                ReviewRequest review = readReview(exchange);
+                requireOwnReview(user, reviewId);
+                if (!database.updateReview(user, reviewId, review.rating(), review.comment())) {
+                    // Either deleted concurrently, or the write was rejected or failed
+                    requireOwnReview(user, reviewId);
+                    throw new ApiException(503, "Could not save the review, please try again");
+                }
+            }
+            case "DELETE" -> {
+                requireOwnReview(user, reviewId);
+                if (!database.deleteReview(user, reviewId)) {
+                    requireOwnReview(user, reviewId);
+                    throw new ApiException(503, "Could not delete the review, please try again");
+                }
+            }
+            default -> throw new ApiException(405, "Method not allowed");
+        }
+        return new Result(true);
+    }
+
+    // Someone else's review answers the same as a missing one, so ids cannot be probed
+    private void requireOwnReview(User user, int reviewId) {
+        if (database.getUserReview(user, reviewId) == null) {
+            throw new ApiException(404, "Review not found");
+        }
+    }
+
+    private Object myReviews(HttpExchange exchange) {
+        requireMethod(exchange, "GET");
+        User user = requireUser(exchange);
+        Map<String, String> query = queryParameters(exchange);
+        return toResponse(database.getUserReviewsPage(user, decodeCursor(query.get("after")), pageSize(query)));
+    }
+
+    private ReviewPageResponse toResponse(ReviewPage page) {
+        return new ReviewPageResponse(page.reviews(), encodeCursor(page.next()));
+    }
+
+    private ReviewRequest readReview(HttpExchange exchange) throws IOException {
+        ReviewRequest review = readBody(exchange, ReviewRequest.class);
+        if (review.rating() == null || review.rating() < 1 || review.rating() > 5) {
+            throw new ApiException(400, "rating must be between 1 and 5");
+        }
+        return review;
+    }
+
+    private <T> T readBody(HttpExchange exchange, Class<T> type) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            T body = gson.fromJson(reader, type);
+            if (body == null) {
+                throw new ApiException(400, "Request body is required");
+            }
+            return body;
+        } catch (JsonParseException e) {
+            throw new ApiException(400, "Request body is not valid JSON");
+        }
+    }
+
+    private User requireUser(HttpExchange exchange) {
+        User user = sessions.findUser(bearerToken(exchange));
+        if (user == null) {
+            throw new ApiException(401, "Log in first");
+        }
+        return user;
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static String[] pathSegments(HttpExchange exchange, String prefix) {
+        String rest = exchange.getRequestURI().getPath().substring(prefix.length());
+        if (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        if (rest.endsWith("/")) {
+            rest = rest.substring(0, rest.length() - 1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int pageSize(Map<String, String> query) {
+        String limit = query.get("limit");
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        int pageSize = parseInt(limit, "limit");
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new ApiException(400, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, name + " must be an integer");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // Cursors are opaque to clients: the page's last timestamp and id, base64url encoded
+
+    private static String encodeCursor(ReviewPage.Cursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        String raw = cursor.timestamp() + "\n" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ReviewPage.Cursor decodeCursor(String after) {
+        if (after == null || after.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('\n');
+            return new ReviewPage.Cursor(raw.substring(0, separator), Integer.parseInt(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ApiException(400, "Invalid page cursor");
+        }
+    }
+
+    /**
+     * Runs the API against the application's database file. The port and worker thread
+     * count come from the reviews.server.port and reviews.server.threads properties.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.getInteger("reviews.server.port", DEFAULT_PORT);
+        int threads = Integer.getInteger("reviews.server.threads", DEFAULT_THREADS);
+        DatabaseManager database = DatabaseManager.initialize();
+        SessionManager sessions = SessionManager.initialize();
+        ApiServer server = new ApiServer(database, sessions, port, threads);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            SessionManager.shutdown();
+            DatabaseManager.shutdown();
+            Metrics.shutdown();
+        }, "api-shutdown"));
+        Metrics.startPeriodicLog();
+        server.start();
+    }
+}
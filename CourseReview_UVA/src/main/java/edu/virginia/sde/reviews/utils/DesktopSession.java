@@ -0,0 +1,36 @@
+package edu.virginia.sde.reviews.utils;
+
+import edu.virginia.sde.reviews.Models.User;
+import edu.virginia.sde.reviews.database.SessionManager;
+
+/**
+ * The desktop app's login. The window only ever has one person at the keyboard, so it
+ * keeps a single session token; the user itself lives in the {@link SessionManager}
+ * and is looked up on every use, so an idle session expires just as it would for any
+ * other client. Only used from the JavaFX application thread.
+ */
+public final class DesktopSession {
+    private static String token;
+
+    private DesktopSession() {
+    }
+
+    public static void start(User user) {
+        end();
+        token = SessionManager.getInstance().create(user).token();
+    }
+
+    /**
+     * The logged-in user, or null if nobody is logged in or the session has expired.
+     */
+    public static User user() {
+        return SessionManager.getInstance().findUser(token);
+    }
+
+    public static void end() {
+        if (token != null) {
+            SessionManager.getInstance().invalidate(token);
+            token = null;
+        }
+    }
+}
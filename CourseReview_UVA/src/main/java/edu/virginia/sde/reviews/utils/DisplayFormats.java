@@ -0,0 +1,22 @@
+package edu.virginia.sde.reviews.utils;
+
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formatters shared by every screen. {@link DateTimeFormatter} is immutable and
+ * thread-safe, so one instance serves all tables, unlike {@code SimpleDateFormat}.
+ */
+public final class DisplayFormats {
+    public static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private DisplayFormats() {
+    }
+
+    /**
+     * Formats a database timestamp in the local time zone, or returns "" for null.
+     */
+    public static String timestamp(Timestamp timestamp) {
+        return timestamp == null ? "" : TIMESTAMP.format(timestamp.toLocalDateTime());
+    }
+}
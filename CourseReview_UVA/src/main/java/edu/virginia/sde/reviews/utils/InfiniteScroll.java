@@ -0,0 +1,39 @@
+package edu.virginia.sde.reviews.utils;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+/**
+ * Calls back when a table is scrolled close to its last row, so the next page of rows
+ * can be fetched before the user reaches the end.
+ */
+public class InfiniteScroll {
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    public static void onNearEnd(TableView<?> table, Runnable loadMore) {
+        // The scroll bar only exists once the table's skin has been created
+        if (table.getSkin() != null) {
+            attach(table, loadMore);
+        } else {
+            table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+                if (newSkin != null) {
+                    attach(table, loadMore);
+                }
+            });
+        }
+    }
+
+    private static void attach(TableView<?> table, Runnable loadMore) {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax() * LOAD_THRESHOLD) {
+                        loadMore.run();
+                    }
+                });
+            }
+        }
+    }
+}
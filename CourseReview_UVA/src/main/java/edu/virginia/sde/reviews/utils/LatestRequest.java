@@ -0,0 +1,34 @@
+package edu.virginia.sde.reviews.utils;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks the most recent request of one kind (for example a course search) so that
+ * starting a new one cancels the one it supersedes and a stale result never reaches
+ * the screen. Only used from the JavaFX application thread.
+ */
+public class LatestRequest {
+    private CompletableFuture<?> current;
+
+    public <T> CompletableFuture<T> replace(CompletableFuture<T> next) {
+        cancel();
+        current = next;
+        return next;
+    }
+
+    public void cancel() {
+        if (current != null) {
+            current.cancel(false);
+            current = null;
+        }
+    }
+
+    /**
+     * True if a failure seen by a dependent stage was caused by the request being
+     * superseded, in which case it should not be reported to the user.
+     */
+    public static boolean isCancellation(Throwable ex) {
+        return ex instanceof CancellationException || ex.getCause() instanceof CancellationException;
+    }
+}
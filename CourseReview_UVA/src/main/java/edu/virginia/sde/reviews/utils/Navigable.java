@@ -0,0 +1,20 @@
+package edu.virginia.sde.reviews.utils;
+
+/**
+ * Implemented by controllers whose view is cached by the {@link Navigator}. Because the
+ * same root node and controller are reused on every visit, data is loaded in
+ * {@link #onShow()} rather than in {@code initialize()}, which only runs once.
+ */
+public interface Navigable {
+    /**
+     * Called on the JavaFX application thread each time the view becomes the scene root.
+     */
+    void onShow();
+
+    /**
+     * Called when another view replaces this one, for example to cancel loads still in
+     * flight.
+     */
+    default void onHide() {
+    }
+}
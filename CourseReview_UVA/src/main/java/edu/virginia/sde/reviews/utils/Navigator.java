@@ -0,0 +1,174 @@
+package edu.virginia.sde.reviews.utils;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Switches the window between the app's screens. Each FXML file is parsed once and its
+ * root node and controller are kept, so going back to a screen only swaps the scene root
+ * and lets the controller refresh its data (see {@link Navigable}). Views can also be
+ * preloaded on a background thread before they are first needed; this is safe because a
+ * node may be built off the JavaFX application thread as long as it is not yet part of
+ * a showing scene.
+ */
+public final class Navigator {
+    public enum View {
+        LOGIN("login.fxml"),
+        SEARCH("search.fxml"),
+        REVIEWS("reviews.fxml"),
+        MY_REVIEWS("myreviews.fxml");
+
+        private final String fxml;
+
+        View(String fxml) {
+            this.fxml = "/edu/virginia/sde/reviews/" + fxml;
+        }
+    }
+
+    private record LoadedView(Parent root, Object controller) {
+    }
+
+    private static Navigator instance;
+
+    private final Stage stage;
+    private final Map<View, CompletableFuture<LoadedView>> views = new ConcurrentHashMap<>();
+    private final ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Scene scene;
+    private LoadedView current;
+
+    private Navigator(Stage stage) {
+        this.stage = stage;
+    }
+
+    /**
+     * Creates the navigator for the application's window. Called once when the
+     * application starts.
+     */
+    public static synchronized Navigator initialize(Stage stage) {
+        if (instance == null) {
+            instance = new Navigator(stage);
+        }
+        return instance;
+    }
+
+    public static synchronized Navigator getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("Navigator has not been initialized");
+        }
+        return instance;
+    }
+
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.preloader.shutdownNow();
+            instance = null;
+        }
+    }
+
+    /**
+     * Starts parsing the given views on a background thread so that the first visit to
+     * each is as fast as later ones. Views that are already loaded or loading are skipped.
+     */
+    public CompletableFuture<Void> preload(View... toLoad) {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[toLoad.length];
+        for (int i = 0; i < toLoad.length; i++) {
+            loads[i] = loading(toLoad[i]);
+        }
+        return CompletableFuture.allOf(loads);
+    }
+
+    /**
+     * Returns a future for the view's controller, preloading the view if it is not
+     * loaded yet, so data prepared in the background can be handed to a screen before
+     * it is first shown. The future completes on a background thread.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> controller(View view) {
+        return loading(view).thenApply(loaded -> (T) loaded.controller());
+    }
+
+    private CompletableFuture<LoadedView> loading(View view) {
+        return views.computeIfAbsent(view, v -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(v);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, preloader));
+    }
+
+    public void show(View view) throws IOException {
+        show(view, controller -> { });
+    }
+
+    /**
+     * Makes the view the window's content. {@code prepare} receives the view's controller
+     * before its {@link Navigable#onShow()} hook runs, for passing it arguments such as
+     * the course to display. Must be called on the JavaFX application thread.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T show(View view, Consumer<T> prepare) throws IOException {
+        LoadedView next = get(view);
+        if (current != null && current != next && current.controller() instanceof Navigable navigable) {
+            navigable.onHide();
+        }
+        if (scene == null) {
+            scene = new Scene(next.root(), WindowConstants.WINDOW_WIDTH, WindowConstants.WINDOW_HEIGHT);
+            stage.setScene(scene);
+        } else if (scene.getRoot() != next.root()) {
+            scene.setRoot(next.root());
+        }
+        current = next;
+
+        T controller = (T) next.controller();
+        prepare.accept(controller);
+        if (controller instanceof Navigable navigable) {
+            navigable.onShow();
+        }
+        return controller;
+    }
+
+    // Waits for a preload still in progress, or parses the view here if none was started
+    private LoadedView get(View view) throws IOException {
+        CompletableFuture<LoadedView> loaded = views.get(view);
+        if (loaded == null) {
+            loaded = CompletableFuture.completedFuture(load(view));
+            CompletableFuture<LoadedView> preloading = views.putIfAbsent(view, loaded);
+            if (preloading != null) {
+                loaded = preloading;
+            }
+        }
+        try {
+            return loaded.join();
+        } catch (CompletionException e) {
+            // A failed preload is forgotten so the next visit tries again
+            views.remove(view, loaded);
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static LoadedView load(View view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Navigator.class.getResource(view.fxml));
+        Parent root = loader.load();
+        return new LoadedView(root, loader.getController());
+    }
+}
@@ -0,0 +1,43 @@
+package edu.virginia.sde.reviews.viewmodels;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+
+/**
+ * An observable value that never changes, for table cells bound to immutable rows.
+ * It keeps no listeners, so it is a single small object rather than the property plus
+ * listener bookkeeping a {@code Simple*Property} carries.
+ */
+public final class ConstantValue<T> implements ObservableValue<T> {
+    private final T value;
+
+    private ConstantValue(T value) {
+        this.value = value;
+    }
+
+    public static <T> ObservableValue<T> of(T value) {
+        return new ConstantValue<>(value);
+    }
+
+    @Override
+    public T getValue() {
+        return value;
+    }
+
+    @Override
+    public void addListener(ChangeListener<? super T> listener) {
+    }
+
+    @Override
+    public void removeListener(ChangeListener<? super T> listener) {
+    }
+
+    @Override
+    public void addListener(InvalidationListener listener) {
+    }
+
+    @Override
+    public void removeListener(InvalidationListener listener) {
+    }
+}
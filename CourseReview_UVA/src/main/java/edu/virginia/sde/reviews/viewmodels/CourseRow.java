@@ -0,0 +1,25 @@
+package edu.virginia.sde.reviews.viewmodels;
+
+import edu.virginia.sde.reviews.Models.Course;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One row of the course search table, with every displayed value computed once when the
+ * search results arrive rather than on each cell update.
+ */
+public record CourseRow(Course course, String subject, int number, String title, FormattedRating rating) {
+    public static CourseRow of(Course course) {
+        return new CourseRow(course, course.getSubject(), course.getNumber(), course.getTitle(),
+                FormattedRating.of(course.getAverageRating()));
+    }
+
+    public static List<CourseRow> of(List<Course> courses) {
+        List<CourseRow> rows = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            rows.add(of(course));
+        }
+        return rows;
+    }
+}
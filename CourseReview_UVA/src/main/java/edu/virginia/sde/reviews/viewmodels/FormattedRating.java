@@ -0,0 +1,39 @@
+package edu.virginia.sde.reviews.viewmodels;
+
+import java.util.Locale;
+
+/**
+ * An average rating together with its display text. Sorting a column of these compares
+ * the numeric value, while cells show {@link #toString()}; unrated courses display as
+ * blank and sort below every rated one.
+ */
+public record FormattedRating(double value, String text) implements Comparable<FormattedRating> {
+    private static final int STEPS = 50;
+    // Ratings are shown to one decimal place, so there are only 51 distinct labels. They
+    // use a decimal point whatever the machine's locale, like the rest of the app's numbers.
+    private static final String[] LABELS = new String[STEPS + 1];
+
+    static {
+        for (int step = 0; step <= STEPS; step++) {
+            LABELS[step] = String.format(Locale.ROOT, "%.1f", step / 10.0);
+        }
+    }
+
+    public static FormattedRating of(double average) {
+        if (average <= 0.0) {
+            return new FormattedRating(average, "");
+        }
+        int step = (int) Math.min(STEPS, Math.round(average * 10));
+        return new FormattedRating(average, LABELS[step]);
+    }
+
+    @Override
+    public int compareTo(FormattedRating other) {
+        return Double.compare(value, other.value);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
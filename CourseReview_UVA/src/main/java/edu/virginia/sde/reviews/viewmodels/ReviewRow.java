@@ -0,0 +1,30 @@
+package edu.virginia.sde.reviews.viewmodels;
+
+import edu.virginia.sde.reviews.Models.Review;
+import edu.virginia.sde.reviews.utils.DisplayFormats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One row of a review table (a course's reviews or the user's own), with the course
+ * label and timestamp formatted once when the page of reviews arrives.
+ */
+public record ReviewRow(Review review, String course, int rating, String timestamp, String comment) {
+    public static ReviewRow of(Review review) {
+        // Reviews from getUserReviews already join in the course subject and number
+        String course = review.getCourseSubject() != null
+                ? review.getCourseSubject() + " " + review.getCourseNumber()
+                : "Course " + review.getCourseId();
+        return new ReviewRow(review, course, review.getRating(), DisplayFormats.timestamp(review.getTimestamp()),
+                review.getComment() == null ? "" : review.getComment());
+    }
+
+    public static List<ReviewRow> of(List<Review> reviews) {
+        List<ReviewRow> rows = new ArrayList<>(reviews.size());
+        for (Review review : reviews) {
+            rows.add(of(review));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,116 @@
+package edu.virginia.sde.reviews.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks SQLite's EXPLAIN QUERY PLAN for the course search filters and the review
+ * lookups against a freshly migrated database, so a query or schema change that falls
+ * back to a full table scan fails the build.
+ */
+class QueryPlanTest {
+    private static final String SUBJECT_INDEX = "sqlite_autoindex_courses_1";
+    private static final Pattern FULL_SCAN = Pattern.compile("SCAN (reviews|r|c)\\b");
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager database;
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        String url = "jdbc:sqlite:" + tempDir.resolve("plans.db");
+        database = new DatabaseManager(url);
+        connection = DriverManager.getConnection(url);
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        connection.close();
+        database.close();
+    }
+
+    @Test
+    void subjectFilterUsesSubjectIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.searchQuery(DatabaseManager.SEARCH_BY_SUBJECT), "CS");
+        assertUses(plan, SUBJECT_INDEX);
+        assertNoScan(plan);
+    }
+
+    @Test
+    void numberFilterUsesNumberIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.searchQuery(DatabaseManager.SEARCH_BY_NUMBER), 3140);
+        assertUses(plan, "idx_courses_number");
+        assertNoScan(plan);
+    }
+
+    @Test
+    void subjectAndNumberFiltersUseAnIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.searchQuery(
+                DatabaseManager.SEARCH_BY_SUBJECT | DatabaseManager.SEARCH_BY_NUMBER), "CS", 3140);
+        assertTrue(plan.stream().anyMatch(step -> step.contains(SUBJECT_INDEX) || step.contains("idx_courses_number")),
+                "Expected an index on subject or number in " + plan);
+        assertNoScan(plan);
+    }
+
+    @Test
+    void titleFilterUsesFullTextIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.searchQuery(DatabaseManager.SEARCH_BY_TITLE), "title : (\"calc\"*)");
+        assertUses(plan, "courses_fts VIRTUAL TABLE");
+        assertNoScan(plan);
+    }
+
+    @Test
+    void courseReviewsUseCourseTimestampIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.COURSE_REVIEWS_QUERY, 1);
+        assertUses(plan, "idx_reviews_course_timestamp");
+        assertNoScan(plan);
+    }
+
+    @Test
+    void userReviewsUseUserTimestampIndex() throws SQLException {
+        List<String> plan = plan(DatabaseManager.USER_REVIEWS_QUERY, 1);
+        assertUses(plan, "idx_reviews_user_timestamp");
+        assertNoScan(plan);
+    }
+
+    private List<String> plan(String query, Object... params) throws SQLException {
+        List<String> steps = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + query)) {
+            DatabaseManager.bind(statement, params);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    steps.add(resultSet.getString("detail"));
+                }
+            }
+        }
+        return steps;
+    }
+
+    private static void assertUses(List<String> plan, String index) {
+        assertTrue(plan.stream().anyMatch(step -> step.contains(index)), "Expected " + index + " in " + plan);
+    }
+
+    // Reviews are queried unaliased or as r; courses are always aliased as c
+    private static void assertNoScan(List<String> plan) {
+        for (String step : plan) {
+            assertFalse(FULL_SCAN.matcher(step).lookingAt(), "Full table scan in " + plan);
+        }
+    }
+}